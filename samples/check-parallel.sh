@@ -0,0 +1,24 @@
+#!/bin/sh
+# Compiles every sample, and programs generated with and without errors, once with the
+# serial TypeChecker and once with --parallel-types; both must print the same errors.
+# usage: samples/check-parallel.sh <classpath of the compiled sources and ANTLR>
+classpath="$1"
+dir=$(mktemp -d)
+trap 'rm -rf "$dir"' EXIT
+for seed in 1 2 3 4 5; do
+    java -cp "$classpath" main.benchmark.ProgramGenerator --seed $seed --functions 40 -o "$dir/generated$seed.cmm"
+    java -cp "$classpath" main.benchmark.ProgramGenerator --seed $seed --functions 40 \
+        --name-errors 5 --type-errors 10 -o "$dir/erroneous$seed.cmm"
+done
+status=0
+for file in "$(dirname "$0")"/*.cmm "$dir"/*.cmm; do
+    java -cp "$classpath" main.Cmm "$file" > "$dir/serial.txt"
+    java -cp "$classpath" main.Cmm --parallel-types "$file" > "$dir/parallel.txt"
+    if ! diff "$dir/serial.txt" "$dir/parallel.txt" > /dev/null; then
+        echo "FAIL $file"
+        diff "$dir/serial.txt" "$dir/parallel.txt"
+        status=1
+    fi
+done
+[ $status -eq 0 ] && echo "Serial and parallel type checking agree"
+exit $status
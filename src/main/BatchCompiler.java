@@ -0,0 +1,167 @@
+package main;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//Compiles many sources in one JVM: arguments are .cmm files, directories
+//(searched recursively for .cmm files) or @filelist files with one path per line.
+//Each file gets its own CompilationContext, so files are compiled on a thread pool.
+public class BatchCompiler {
+    public static final String USAGE = "Usage: Cmm --batch [--threads <n>] <files|dirs|@filelist>...";
+
+    private final PrintStream out;
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+    private CompilationTimings.Format timingsFormat;
+
+    public BatchCompiler() {
+        this(System.out);
+    }
+
+    public BatchCompiler(PrintStream out) {
+        this.out = out;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+    }
+
+    public CompilationTimings.Format getTimingsFormat() {
+        return timingsFormat;
+    }
+    //null disables per-phase timings
+    public void setTimingsFormat(CompilationTimings.Format timingsFormat) {
+        this.timingsFormat = timingsFormat;
+    }
+
+    public static ArrayList<String> collectSources(String[] args) throws IOException {
+        ArrayList<String> sources = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("@")) {
+                for (String line : Files.readAllLines(Paths.get(arg.substring(1)))) {
+                    if (!line.trim().isEmpty())
+                        sources.add(line.trim());
+                }
+            }
+            else if (Files.isDirectory(Paths.get(arg))) {
+                try (Stream<Path> paths = Files.walk(Paths.get(arg))) {
+                    ArrayList<String> found = paths
+                            .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".cmm"))
+                            .map(Path::toString)
+                            .collect(Collectors.toCollection(ArrayList::new));
+                    Collections.sort(found);
+                    sources.addAll(found);
+                }
+            }
+            else
+                sources.add(arg);
+        }
+        return sources;
+    }
+
+    public CompilationResult compileFile(String fileName) {
+        long start = System.nanoTime();
+        CompilationResult result;
+        try {
+            CmmCompiler compiler = new CmmCompiler(null);
+            compiler.setCollectTimings(timingsFormat != null);
+            result = compiler.compileFile(fileName);
+        } catch (IOException | RuntimeException e) {
+            result = CompilationResult.failed(fileName, e);
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    //results are returned in the order of sources, whatever the number of threads
+    public ArrayList<CompilationResult> compileAll(ArrayList<String> sources) {
+        ArrayList<CompilationResult> results = new ArrayList<>();
+        if (numberOfThreads == 1 || sources.size() < 2) {
+            for (String source : sources)
+                results.add(compileFile(source));
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, sources.size()));
+        try {
+            ArrayList<Future<CompilationResult>> futures = new ArrayList<>();
+            for (String source : sources)
+                futures.add(executor.submit(() -> compileFile(source)));
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(CompilationResult.failed(sources.get(i), e.getCause()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(CompilationResult.failed(sources.get(i), e));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    public void printSummary(ArrayList<CompilationResult> results, long elapsedNanos) {
+        int passed = 0;
+        for (CompilationResult result : results) {
+            out.println(result);
+            for (String error : result.getErrors())
+                out.println("    " + error);
+            if (result.getTimings() != null)
+                out.println(result.getTimings().format(timingsFormat));
+            if (result.isSuccessful())
+                passed += 1;
+        }
+        out.printf(Locale.ROOT, "Compiled %d files: %d passed, %d failed in %.2f ms%n",
+                results.size(), passed, results.size() - passed, elapsedNanos / 1e6);
+    }
+
+    //0 if the value is not a number
+    static int parseNumberOfThreads(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    //returns true if every source compiled successfully; accepts --threads <n> before the sources
+    public boolean run(String[] args) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                int numberOfThreads = i + 1 < args.length ? parseNumberOfThreads(args[++i]) : 0;
+                if (numberOfThreads < 1) {
+                    out.println("--threads expects a positive number of threads");
+                    out.println(USAGE);
+                    return false;
+                }
+                setNumberOfThreads(numberOfThreads);
+            }
+            else
+                inputs.add(args[i]);
+        }
+        ArrayList<CompilationResult> results = compileAll(collectSources(inputs.toArray(new String[0])));
+        printSummary(results, System.nanoTime() - start);
+        for (CompilationResult result : results)
+            if (!result.isSuccessful())
+                return false;
+        return true;
+    }
+}
@@ -1,13 +1,86 @@
 package main;
 
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
+import main.daemon.CompileDaemon;
+import main.daemon.DaemonClient;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 public class Cmm {
+    private static CompilationTimings.Format timingsFormat;
+    private static boolean parallelTypeChecking;
+
     public static void main(String[] args) throws IOException {
-        CharStream reader = CharStreams.fromFileName(args[0]);
+        ArrayList<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean parseStats = arguments.remove("--parse-stats");
+        if (arguments.remove("--timings"))
+            timingsFormat = CompilationTimings.Format.TEXT;
+        if (arguments.remove("--timings=json"))
+            timingsFormat = CompilationTimings.Format.JSON;
+        parallelTypeChecking = arguments.remove("--parallel-types");
+        boolean successful = run(arguments.toArray(new String[0]));
+        if (parseStats)
+            System.out.println(CmmCompiler.parseStatistics());
+        if (!successful)
+            System.exit(1);
+    }
+
+    private static boolean run(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchCompiler batchCompiler = new BatchCompiler();
+            batchCompiler.setTimingsFormat(timingsFormat);
+            return batchCompiler.run(Arrays.copyOfRange(args, 1, args.length));
+        }
+        if (args.length > 0 && (args[0].equals("--daemon") || args[0].equals("--client"))) {
+            int port = CompileDaemon.DEFAULT_PORT;
+            int numberOfThreads = Runtime.getRuntime().availableProcessors();
+            int first = 1;
+            while (first < args.length && (args[first].equals("--port") || args[first].equals("--threads"))) {
+                //a missing value is reported like an invalid one
+                String value = first + 1 < args.length ? args[first + 1] : "";
+                if (args[first].equals("--port"))
+                    port = CompileDaemon.parsePort(value);
+                else
+                    numberOfThreads = BatchCompiler.parseNumberOfThreads(value);
+                first += 2;
+            }
+            if (port < 0) {
+                System.out.println("--port expects a port number between 0 and 65535");
+                System.out.println(CompileDaemon.USAGE);
+                return false;
+            }
+            if (numberOfThreads < 1) {
+                System.out.println("--threads expects a positive number of threads");
+                System.out.println(CompileDaemon.USAGE);
+                return false;
+            }
+            if (args[0].equals("--daemon")) {
+                CompileDaemon daemon = new CompileDaemon(port, numberOfThreads);
+                daemon.start();
+                System.out.println("Compile daemon listening on localhost:" + daemon.getPort());
+                daemon.serve();
+                return true;
+            }
+            boolean successful = true;
+            try (DaemonClient client = new DaemonClient(port)) {
+                for (String fileName : Arrays.copyOfRange(args, first, args.length))
+                    successful &= client.compileFile(fileName, System.out);
+            }
+            return successful;
+        }
         CmmCompiler cmmCompiler = new CmmCompiler();
-        cmmCompiler.compile(reader);
+        cmmCompiler.setCollectTimings(timingsFormat != null);
+        cmmCompiler.setParallelTypeChecking(parallelTypeChecking);
+        CompilationResult result;
+        try {
+            result = cmmCompiler.compileFile(args[0]);
+        } catch (RuntimeException e) {
+            //reported like a failed file of a batch
+            result = CompilationResult.failed(args[0], e);
+            System.out.println(result);
+        }
+        if (result.getTimings() != null)
+            System.out.println(result.getTimings().format(timingsFormat));
+        return result.isSuccessful();
     }
 }
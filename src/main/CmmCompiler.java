@@ -6,34 +6,188 @@ import main.visitor.type.*;
 import parsers.*;
 import main.ast.nodes.Program;
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CmmCompiler {
-    public void compile(CharStream textStream) {
+    private static final AtomicLong numberOfParses = new AtomicLong();
+    private static final AtomicLong numberOfLLFallbacks = new AtomicLong();
+
+    private final PrintStream out;
+    private boolean twoStageParsing = true;
+    private boolean collectTimings = false;
+    private boolean parallelTypeChecking = false;
+
+    public CmmCompiler() {
+        this(System.out);
+    }
+
+    //out may be null to compile silently, e.g. in batch mode
+    public CmmCompiler(PrintStream out) {
+        this.out = out;
+    }
+
+    public static long getNumberOfParses() {
+        return numberOfParses.get();
+    }
+
+    public static long getNumberOfLLFallbacks() {
+        return numberOfLLFallbacks.get();
+    }
+
+    public static String parseStatistics() {
+        long parses = numberOfParses.get();
+        long fallbacks = numberOfLLFallbacks.get();
+        return String.format(Locale.ROOT, "Parses: %d, SLL to LL fallbacks: %d (%.1f%%)",
+                parses, fallbacks, parses == 0 ? 0.0 : 100.0 * fallbacks / parses);
+    }
+
+    public boolean isTwoStageParsing() {
+        return twoStageParsing;
+    }
+    //when false, every parse uses full LL prediction directly
+    public void setTwoStageParsing(boolean twoStageParsing) {
+        this.twoStageParsing = twoStageParsing;
+    }
+
+    public boolean isCollectTimings() {
+        return collectTimings;
+    }
+    //when true, each result carries the CompilationTimings of its phases
+    public void setCollectTimings(boolean collectTimings) {
+        this.collectTimings = collectTimings;
+    }
+
+    public boolean isParallelTypeChecking() {
+        return parallelTypeChecking;
+    }
+    //when true, declarations are type checked on the common ForkJoinPool, see ParallelTypeChecker
+    public void setParallelTypeChecking(boolean parallelTypeChecking) {
+        this.parallelTypeChecking = parallelTypeChecking;
+    }
+
+    //Tries the faster SLL prediction first and bails out on the first error; only
+    //inputs that SLL cannot handle (real syntax errors or true LL ambiguities) are
+    //parsed again with full LL prediction and the normal error recovery.
+    public Program parse(CmmParser cmmParser, CommonTokenStream tokenStream, CompilationResult result) {
+        return parseTree(cmmParser, tokenStream, result).cmmProgram;
+    }
+
+    //same as parse, but keeps the parse tree, e.g. to find the source range of each declaration
+    public CmmParser.CmmContext parseTree(CmmParser cmmParser, CommonTokenStream tokenStream, CompilationResult result) {
+        numberOfParses.incrementAndGet();
+        if (!twoStageParsing)
+            return cmmParser.cmm();
+
+        List<? extends ANTLRErrorListener> listeners = new ArrayList<>(cmmParser.getErrorListeners());
+        cmmParser.removeErrorListeners();
+        cmmParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        cmmParser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return cmmParser.cmm();
+        } catch (ParseCancellationException e) {
+            numberOfLLFallbacks.incrementAndGet();
+            result.setUsedLLFallback(true);
+            tokenStream.seek(0);
+            cmmParser.reset();
+            for (ANTLRErrorListener listener : listeners)
+                cmmParser.addErrorListener(listener);
+            cmmParser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            cmmParser.setErrorHandler(new DefaultErrorStrategy());
+            return cmmParser.cmm();
+        }
+    }
+
+    private static void beginPhase(CompilationTimings timings, String phase) {
+        if (timings != null)
+            timings.begin(phase);
+    }
+
+    private static void endPhase(CompilationTimings timings) {
+        if (timings != null)
+            timings.end();
+    }
+
+    //ASCII sources are lexed straight from a memory mapping of the file, see MappedCharStream
+    public CompilationResult compileFile(String fileName) throws IOException {
+        return compile(MappedCharStream.fromFileName(fileName));
+    }
+
+    public CompilationResult compile(CharStream textStream) {
+        CompilationResult result = new CompilationResult(textStream.getSourceName());
+        CompilationContext context = new CompilationContext();
+        CompilationTimings timings = collectTimings ? new CompilationTimings() : null;
+        result.setTimings(timings);
+        long start = System.nanoTime();
+
+        beginPhase(timings, "lexing");
         CmmLexer cmmLexer = new CmmLexer(textStream);
+        if (out == null)
+            cmmLexer.removeErrorListeners();
         CommonTokenStream tokenStream = new CommonTokenStream(cmmLexer);
-        CmmParser cmmParser = new CmmParser(tokenStream);
-        Program program = cmmParser.cmm().cmmProgram;
-        ErrorReporter errorReporter = new ErrorReporter();
+        tokenStream.fill();
+        endPhase(timings);
 
-        NameAnalyser nameAnalyser = new NameAnalyser();
+        beginPhase(timings, "parsing");
+        CmmParser cmmParser = ParserCache.shared().newParser(tokenStream);
+        if (out == null)
+            cmmParser.removeErrorListeners();
+        Program program = parse(cmmParser, tokenStream, result);
+        result.setNumberOfSyntaxErrors(cmmParser.getNumberOfSyntaxErrors());
+        endPhase(timings);
+        //a program that did not parse is not analysed; its AST is incomplete or missing
+        if (result.getNumberOfSyntaxErrors() > 0 || program == null) {
+            result.setNumberOfSyntaxErrors(Math.max(1, result.getNumberOfSyntaxErrors()));
+            result.setElapsedNanos(System.nanoTime() - start);
+            return result;
+        }
+        ErrorReporter errorReporter = new ErrorReporter(context, out);
+
+        beginPhase(timings, "name analysis");
+        NameAnalyser nameAnalyser = new NameAnalyser(context);
         program.accept(nameAnalyser);
+        endPhase(timings);
 
+        beginPhase(timings, "name errors");
         int numberOfErrors = program.accept(errorReporter);
-        if(numberOfErrors > 0)
-            System.exit(1);
+        endPhase(timings);
+        if (timings != null) {
+            timings.setNumberOfTokens(tokenStream.size());
+            timings.setNumberOfNodes(errorReporter.getNumberOfVisitedNodes());
+        }
+        if(numberOfErrors > 0) {
+            result.addErrors(context.getDiagnostics());
+            result.setElapsedNanos(System.nanoTime() - start);
+            if (timings != null)
+                timings.setNumberOfScopes(context.getNumberOfPushedScopes());
+            return result;
+        }
 
-        TypeChecker typeChecker = new TypeChecker();
+        beginPhase(timings, "type checking");
+        Visitor<Void> typeChecker = parallelTypeChecking ? new ParallelTypeChecker(context) : new TypeChecker(context);
         program.accept(typeChecker);
+        endPhase(timings);
 
+        beginPhase(timings, "type errors");
         numberOfErrors = program.accept(errorReporter);
+        endPhase(timings);
+        if (timings != null)
+            timings.setNumberOfScopes(context.getNumberOfPushedScopes());
+        result.addErrors(context.getDiagnostics());
+        result.setElapsedNanos(System.nanoTime() - start);
         if(numberOfErrors > 0)
-            System.exit(1);
+            return result;
 
-        System.out.println("Compilation successful");
+        if (out != null)
+            out.println("Compilation successful");
 
 //        ASTTreePrinter astTreePrinter = new ASTTreePrinter();
 //        program.accept(astTreePrinter);
 
+        return result;
     }
 }
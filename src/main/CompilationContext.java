@@ -0,0 +1,64 @@
+package main;
+
+import main.symbolTable.SymbolTable;
+import main.symbolTable.utils.Stack;
+
+import java.util.ArrayList;
+
+//Per-compilation state shared by the visitors of one program: the scope stack,
+//the root symbol table and the reported diagnostics.
+public class CompilationContext {
+    private SymbolTable top;
+    private SymbolTable root;
+    private final Stack<SymbolTable> stack = new Stack<>();
+    private final ArrayList<String> diagnostics = new ArrayList<>();
+    private int numberOfPushedScopes = 0;
+
+    public SymbolTable getTop() {
+        return top;
+    }
+
+    public SymbolTable getRoot() {
+        return root;
+    }
+    public void setRoot(SymbolTable root) {
+        this.root = root;
+    }
+
+    public void push(SymbolTable symbolTable) {
+        numberOfPushedScopes += 1;
+        if (top != null)
+            stack.push(top);
+        top = symbolTable;
+    }
+
+    public void pop() {
+        top = stack.pop();
+    }
+
+    public int getNumberOfPushedScopes() {
+        return numberOfPushedScopes;
+    }
+
+    //A context for one task of a checker that runs on several threads: it shares the root
+    //and starts at the current top, but has a scope stack of its own. See join.
+    public CompilationContext fork() {
+        CompilationContext task = new CompilationContext();
+        task.root = root;
+        task.top = top;
+        return task;
+    }
+
+    //adds what a forked context counted and reported; tasks are joined in program order
+    public void join(CompilationContext task) {
+        numberOfPushedScopes += task.numberOfPushedScopes;
+        diagnostics.addAll(task.diagnostics);
+    }
+
+    public ArrayList<String> getDiagnostics() {
+        return diagnostics;
+    }
+    public void addDiagnostic(String diagnostic) {
+        diagnostics.add(diagnostic);
+    }
+}
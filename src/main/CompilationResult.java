@@ -0,0 +1,87 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+public class CompilationResult {
+    private String sourceName;
+    private ArrayList<String> errors = new ArrayList<>();
+    private int numberOfSyntaxErrors;
+    private boolean usedLLFallback;
+    private Throwable internalError;
+    private long elapsedNanos;
+    private CompilationTimings timings;
+
+    public CompilationResult(String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    public static CompilationResult failed(String sourceName, Throwable internalError) {
+        CompilationResult result = new CompilationResult(sourceName);
+        result.setInternalError(internalError);
+        return result;
+    }
+
+    public boolean isSuccessful() {
+        return errors.isEmpty() && numberOfSyntaxErrors == 0 && internalError == null;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public ArrayList<String> getErrors() {
+        return errors;
+    }
+    public void addErrors(ArrayList<String> errors) {
+        this.errors.addAll(errors);
+    }
+
+    public int getNumberOfSyntaxErrors() {
+        return numberOfSyntaxErrors;
+    }
+    public void setNumberOfSyntaxErrors(int numberOfSyntaxErrors) {
+        this.numberOfSyntaxErrors = numberOfSyntaxErrors;
+    }
+
+    public boolean isUsedLLFallback() {
+        return usedLLFallback;
+    }
+    public void setUsedLLFallback(boolean usedLLFallback) {
+        this.usedLLFallback = usedLLFallback;
+    }
+
+    public Throwable getInternalError() {
+        return internalError;
+    }
+    public void setInternalError(Throwable internalError) {
+        this.internalError = internalError;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public CompilationTimings getTimings() {
+        return timings;
+    }
+    public void setTimings(CompilationTimings timings) {
+        this.timings = timings;
+    }
+
+    @Override
+    public String toString() {
+        String status = isSuccessful() ? "PASS" : "FAIL";
+        String time = String.format(Locale.ROOT, "%.2f ms", elapsedNanos / 1e6);
+        if (internalError != null)
+            return status + " " + sourceName + " (" + time + ", internal error: " + internalError + ")";
+        if (numberOfSyntaxErrors > 0)
+            return status + " " + sourceName + " (" + time + ", " + numberOfSyntaxErrors + " syntax errors)";
+        if (!isSuccessful())
+            return status + " " + sourceName + " (" + time + ", " + errors.size() + " errors)";
+        return status + " " + sourceName + " (" + time + ")";
+    }
+}
@@ -0,0 +1,119 @@
+package main;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Locale;
+
+//Wall time, CPU time and allocated bytes of each phase of one compilation,
+//measured on the compiling thread.
+public class CompilationTimings {
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    public enum Format { TEXT, JSON }
+
+    public static class Phase {
+        private final String name;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        public Phase(String name, long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.name = name;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getName() { return name; }
+        public long getWallNanos() { return wallNanos; }
+        public long getCpuNanos() { return cpuNanos; }
+        //-1 if the JVM cannot measure thread allocation
+        public long getAllocatedBytes() { return allocatedBytes; }
+    }
+
+    private final ArrayList<Phase> phases = new ArrayList<>();
+    private int numberOfTokens;
+    private int numberOfNodes;
+    private int numberOfScopes;
+
+    private String currentPhase;
+    private long wallStart;
+    private long cpuStart;
+    private long allocatedStart;
+
+    private static long cpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public void begin(String phase) {
+        currentPhase = phase;
+        allocatedStart = allocatedBytes();
+        cpuStart = cpuTime();
+        wallStart = System.nanoTime();
+    }
+
+    public void end() {
+        long wall = System.nanoTime() - wallStart;
+        long cpu = cpuTime() - cpuStart;
+        long allocated = allocatedStart < 0 ? -1 : allocatedBytes() - allocatedStart;
+        phases.add(new Phase(currentPhase, wall, cpu, allocated));
+        currentPhase = null;
+    }
+
+    public ArrayList<Phase> getPhases() {
+        return phases;
+    }
+
+    public int getNumberOfTokens() { return numberOfTokens; }
+    public void setNumberOfTokens(int numberOfTokens) { this.numberOfTokens = numberOfTokens; }
+
+    public int getNumberOfNodes() { return numberOfNodes; }
+    public void setNumberOfNodes(int numberOfNodes) { this.numberOfNodes = numberOfNodes; }
+
+    public int getNumberOfScopes() { return numberOfScopes; }
+    public void setNumberOfScopes(int numberOfScopes) { this.numberOfScopes = numberOfScopes; }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%-18s %12s %12s %16s%n", "phase", "wall (ms)", "cpu (ms)", "allocated (KB)"));
+        long wall = 0, cpu = 0, allocated = 0;
+        for (Phase phase : phases) {
+            report.append(String.format(Locale.ROOT, "%-18s %12.3f %12.3f %16s%n", phase.name, phase.wallNanos / 1e6,
+                    phase.cpuNanos / 1e6, phase.allocatedBytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", phase.allocatedBytes / 1024.0)));
+            wall += phase.wallNanos;
+            cpu += phase.cpuNanos;
+            allocated += Math.max(0, phase.allocatedBytes);
+        }
+        report.append(String.format(Locale.ROOT, "%-18s %12.3f %12.3f %16.1f%n", "total", wall / 1e6, cpu / 1e6, allocated / 1024.0));
+        report.append(String.format(Locale.ROOT, "tokens: %d, AST nodes: %d, scopes: %d", numberOfTokens, numberOfNodes, numberOfScopes));
+        return report.toString();
+    }
+
+    public String format(Format format) {
+        return format == Format.JSON ? toJson() : toString();
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"phases\":[");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            if (i > 0)
+                json.append(',');
+            json.append(String.format(Locale.ROOT, "{\"name\":\"%s\",\"wallNanos\":%d,\"cpuNanos\":%d,\"allocatedBytes\":%d}",
+                    phase.name, phase.wallNanos, phase.cpuNanos, phase.allocatedBytes));
+        }
+        json.append(String.format(Locale.ROOT, "],\"tokens\":%d,\"nodes\":%d,\"scopes\":%d}", numberOfTokens, numberOfNodes, numberOfScopes));
+        return json.toString();
+    }
+}
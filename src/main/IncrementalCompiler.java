@@ -0,0 +1,364 @@
+package main;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.symbolTable.GlobalSnapshot;
+import main.visitor.ErrorReporter;
+import main.visitor.name.NameAnalyser;
+import main.visitor.type.TypeChecker;
+import org.antlr.v4.runtime.*;
+import parsers.CmmLexer;
+import parsers.CmmParser;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+//Compiles successive versions of the same program, re-analysing only the functions (and main)
+//whose fingerprint changed since the previous compile and reusing their cached diagnostics
+//otherwise. A fingerprint covers the declaration's tokens (their types, text and lines relative to
+//the declaration's first line, so that a declaration that only moved is reused), its name after
+//duplicate renaming, and for every identifier in it the declarations of the structs and functions of that
+//name: the whole text of a struct, the header of a function, plus the structs these mention,
+//transitively. Struct declarations are analysed every time, since they fill the symbol tables
+//that the functions are checked against, unless the global declarations are unchanged: then
+//the tables are restored from a GlobalSnapshot of the last compile without name errors.
+//The diagnostics are the same as those of CmmCompiler.compile, in the same order.
+public class IncrementalCompiler {
+    private static final String LINE_PREFIX = "Line ";
+
+    //the diagnostics of a declaration, with their lines relative to the declaration's first line
+    private static class CachedDeclaration {
+        final ArrayList<String> nameDiagnostics;
+        //null until the declaration is type checked, which only happens when there are no name errors
+        ArrayList<String> typeDiagnostics;
+
+        CachedDeclaration(ArrayList<String> nameDiagnostics) {
+            this.nameDiagnostics = nameDiagnostics;
+        }
+    }
+
+    //a function or main with the source range it was parsed from
+    private static class Unit {
+        final Node declaration;
+        final ParserRuleContext tree;
+        final String name;
+        //line of the declaration, which its cached diagnostics are relative to
+        final int line;
+        String fingerprint;
+        CachedDeclaration cached;
+        boolean nameAnalysed;
+
+        Unit(Node declaration, ParserRuleContext tree, String name) {
+            this.declaration = declaration;
+            this.tree = tree;
+            this.name = name;
+            this.line = declaration.getLine();
+        }
+    }
+
+    private final PrintStream out;
+    private HashMap<String, CachedDeclaration> cache = new HashMap<>();
+    //see GlobalSnapshot; null until a compile without name errors
+    private byte[] globalSnapshot;
+    private int numberOfReusedDeclarations = 0;
+    private int numberOfCheckedDeclarations = 0;
+    private boolean globalsRestored = false;
+
+    public IncrementalCompiler() {
+        this(System.out);
+    }
+
+    //out may be null to compile silently
+    public IncrementalCompiler(PrintStream out) {
+        this.out = out;
+    }
+
+    //functions and main whose cached diagnostics were reused by the last compile
+    public int getNumberOfReusedDeclarations() {
+        return numberOfReusedDeclarations;
+    }
+
+    //functions and main that the last compile analysed again
+    public int getNumberOfCheckedDeclarations() {
+        return numberOfCheckedDeclarations;
+    }
+
+    //whether the last compile restored the global symbol tables instead of building them
+    public boolean wereGlobalsRestored() {
+        return globalsRestored;
+    }
+
+    public void clear() {
+        cache = new HashMap<>();
+        globalSnapshot = null;
+    }
+
+    public CompilationResult compileFile(String fileName) throws IOException {
+        return compile(MappedCharStream.fromFileName(fileName));
+    }
+
+    public CompilationResult compile(CharStream textStream) {
+        CompilationResult result = new CompilationResult(textStream.getSourceName());
+        CompilationContext context = new CompilationContext();
+        long start = System.nanoTime();
+
+        CmmLexer cmmLexer = new CmmLexer(textStream);
+        if (out == null)
+            cmmLexer.removeErrorListeners();
+        CommonTokenStream tokenStream = new CommonTokenStream(cmmLexer);
+        tokenStream.fill();
+        CmmParser cmmParser = ParserCache.shared().newParser(tokenStream);
+        if (out == null)
+            cmmParser.removeErrorListeners();
+        CmmParser.CmmContext tree = new CmmCompiler(out).parseTree(cmmParser, tokenStream, result);
+        result.setNumberOfSyntaxErrors(cmmParser.getNumberOfSyntaxErrors());
+        Program program = tree.cmmProgram;
+        //like CmmCompiler.compile, a program that did not parse is not analysed, and nothing is kept
+        if (result.getNumberOfSyntaxErrors() > 0 || program == null) {
+            result.setNumberOfSyntaxErrors(Math.max(1, result.getNumberOfSyntaxErrors()));
+            clear();
+            result.setElapsedNanos(System.nanoTime() - start);
+            return result;
+        }
+
+        Fingerprinter fingerprinter = new Fingerprinter(tokenStream, tree.p);
+        String declarationHash = fingerprinter.declarationHash();
+        NameAnalyser nameAnalyser = new NameAnalyser(context);
+        globalsRestored = globalSnapshot != null
+                && GlobalSnapshot.restore(globalSnapshot, declarationHash, program, context);
+        if (!globalsRestored)
+            nameAnalyser.declareGlobals(program);
+
+        ArrayList<Unit> units = new ArrayList<>();
+        List<CmmParser.FunctionDeclarationContext> functionTrees = tree.p.functionDeclaration();
+        for (int i = 0; i < program.getFunctions().size(); i++) {
+            FunctionDeclaration funcDec = program.getFunctions().get(i);
+            units.add(new Unit(funcDec, functionTrees.get(i), funcDec.getFunctionName().getName()));
+        }
+        units.add(new Unit(program.getMain(), tree.p.main(), "main"));
+        for (Unit unit : units) {
+            unit.fingerprint = fingerprinter.fingerprint(unit.tree, unit.name);
+            unit.cached = cache.get(unit.fingerprint);
+        }
+
+        numberOfReusedDeclarations = 0;
+        numberOfCheckedDeclarations = 0;
+        for (Unit unit : units) {
+            //names are also resolved again for declarations that still need type checking,
+            //which binds their identifiers; this finds the same name errors as before: none
+            if (unit.cached != null && unit.cached.typeDiagnostics != null) {
+                numberOfReusedDeclarations += 1;
+                continue;
+            }
+            numberOfCheckedDeclarations += 1;
+            unit.nameAnalysed = true;
+            if (unit.declaration instanceof FunctionDeclaration)
+                nameAnalyser.analyseFunction((FunctionDeclaration) unit.declaration);
+            else
+                nameAnalyser.analyseMain(program.getMain());
+        }
+
+        ErrorReporter errorReporter = new ErrorReporter(context, out);
+        errorReporter.printErrors(program);
+        for (StructDeclaration structDec : program.getStructs())
+            structDec.accept(errorReporter);
+        for (Unit unit : units) {
+            if (unit.nameAnalysed) {
+                int first = context.getDiagnostics().size();
+                unit.declaration.accept(errorReporter);
+                unit.cached = new CachedDeclaration(moveLines(context.getDiagnostics().subList(first, context.getDiagnostics().size()), -unit.line));
+            }
+            else {
+                //only the errors found by declareGlobals are on it; they are part of the cached ones
+                unit.declaration.flushErrors();
+                report(context, moveLines(unit.cached.nameDiagnostics, unit.line));
+            }
+        }
+
+        if (context.getDiagnostics().isEmpty()) {
+            //taken before TypeChecker gives undeclared struct types NoType
+            if (!globalsRestored)
+                globalSnapshot = GlobalSnapshot.write(context.getRoot(), program, declarationHash);
+            TypeChecker typeChecker = new TypeChecker(context);
+            for (StructDeclaration structDec : program.getStructs())
+                structDec.accept(typeChecker);
+            for (Unit unit : units)
+                if (unit.cached.typeDiagnostics == null)
+                    unit.declaration.accept(typeChecker);
+
+            errorReporter.printErrors(program);
+            for (StructDeclaration structDec : program.getStructs())
+                structDec.accept(errorReporter);
+            for (Unit unit : units) {
+                if (unit.cached.typeDiagnostics == null) {
+                    int first = context.getDiagnostics().size();
+                    unit.declaration.accept(errorReporter);
+                    unit.cached.typeDiagnostics = moveLines(context.getDiagnostics().subList(first, context.getDiagnostics().size()), -unit.line);
+                }
+                else
+                    report(context, moveLines(unit.cached.typeDiagnostics, unit.line));
+            }
+        }
+
+        HashMap<String, CachedDeclaration> newCache = new HashMap<>();
+        for (Unit unit : units)
+            newCache.put(unit.fingerprint, unit.cached);
+        cache = newCache;
+
+        result.addErrors(context.getDiagnostics());
+        result.setElapsedNanos(System.nanoTime() - start);
+        if (out != null && context.getDiagnostics().isEmpty())
+            out.println("Compilation successful");
+        return result;
+    }
+
+    private void report(CompilationContext context, ArrayList<String> diagnostics) {
+        for (String diagnostic : diagnostics) {
+            context.addDiagnostic(diagnostic);
+            if (out != null)
+                out.println(diagnostic);
+        }
+    }
+
+    //adds offset to the line of every "Line <n>: ..." diagnostic
+    private static ArrayList<String> moveLines(List<String> diagnostics, int offset) {
+        ArrayList<String> moved = new ArrayList<>(diagnostics.size());
+        for (String diagnostic : diagnostics) {
+            int colon = diagnostic.indexOf(':');
+            if (!diagnostic.startsWith(LINE_PREFIX) || colon < 0) {
+                moved.add(diagnostic);
+                continue;
+            }
+            int line = Integer.parseInt(diagnostic.substring(LINE_PREFIX.length(), colon));
+            moved.add(LINE_PREFIX + (line + offset) + diagnostic.substring(colon));
+        }
+        return moved;
+    }
+
+    private static class Fingerprinter {
+        private final CommonTokenStream tokenStream;
+        private final CmmParser.ProgramContext program;
+        //struct and function declarations by name, in program order
+        private final HashMap<String, ArrayList<ParserRuleContext>> globals = new HashMap<>();
+        private final HashSet<String> structNames = new HashSet<>();
+        private final HashMap<String, String> interfaces = new HashMap<>();
+
+        Fingerprinter(CommonTokenStream tokenStream, CmmParser.ProgramContext program) {
+            this.tokenStream = tokenStream;
+            this.program = program;
+            for (CmmParser.StructDeclarationContext struct : program.structDeclaration()) {
+                String name = struct.id.getText();
+                structNames.add(name);
+                globals.computeIfAbsent(name, k -> new ArrayList<>()).add(struct);
+            }
+            for (CmmParser.FunctionDeclarationContext function : program.functionDeclaration())
+                globals.computeIfAbsent(function.id.getText(), k -> new ArrayList<>()).add(function);
+        }
+
+        //the tokens a declaration exposes to others: a whole struct, or a function up to its body
+        private int interfaceStop(ParserRuleContext declaration) {
+            if (declaration instanceof CmmParser.FunctionDeclarationContext)
+                return ((CmmParser.FunctionDeclarationContext) declaration).b.start.getTokenIndex() - 1;
+            return declaration.stop.getTokenIndex();
+        }
+
+        private LinkedHashSet<String> identifiers(int start, int stop) {
+            LinkedHashSet<String> identifiers = new LinkedHashSet<>();
+            for (int i = start; i <= stop; i++) {
+                Token token = tokenStream.get(i);
+                if (token.getType() == CmmLexer.IDENTIFIER)
+                    identifiers.add(token.getText());
+            }
+            return identifiers;
+        }
+
+        private void appendTokens(StringBuilder text, int start, int stop) {
+            for (int i = start; i <= stop; i++) {
+                Token token = tokenStream.get(i);
+                text.append(token.getType()).append(':').append(token.getText()).append(' ');
+            }
+        }
+
+        //a comment may span lines without adding NEWLINE tokens, so the relative lines are kept too
+        private void appendTokensWithRelativeLines(StringBuilder text, int start, int stop) {
+            int firstLine = tokenStream.get(start).getLine();
+            for (int i = start; i <= stop; i++) {
+                Token token = tokenStream.get(i);
+                text.append(token.getLine() - firstLine).append(':');
+                text.append(token.getType()).append(':').append(token.getText()).append(' ');
+            }
+        }
+
+        //the interfaces of every declaration named name and of the structs they mention, transitively
+        private String interfaceOf(String name) {
+            String cached = interfaces.get(name);
+            if (cached != null)
+                return cached;
+            StringBuilder text = new StringBuilder();
+            LinkedHashSet<String> visited = new LinkedHashSet<>();
+            ArrayDeque<String> pending = new ArrayDeque<>();
+            visited.add(name);
+            pending.add(name);
+            while (!pending.isEmpty()) {
+                String current = pending.poll();
+                ArrayList<ParserRuleContext> declarations = globals.get(current);
+                if (declarations == null)
+                    continue;
+                for (ParserRuleContext declaration : declarations) {
+                    int start = declaration.start.getTokenIndex();
+                    int stop = interfaceStop(declaration);
+                    text.append(current).append('{');
+                    appendTokens(text, start, stop);
+                    text.append('}');
+                    for (String identifier : identifiers(start, stop))
+                        if (structNames.contains(identifier) && visited.add(identifier))
+                            pending.add(identifier);
+                }
+            }
+            interfaces.put(name, text.toString());
+            return text.toString();
+        }
+
+        //the interfaces of all structs and functions, without their lines, see GlobalSnapshot
+        String declarationHash() {
+            StringBuilder text = new StringBuilder();
+            for (CmmParser.StructDeclarationContext struct : program.structDeclaration()) {
+                appendTokens(text, struct.start.getTokenIndex(), interfaceStop(struct));
+                text.append('\n');
+            }
+            for (CmmParser.FunctionDeclarationContext function : program.functionDeclaration()) {
+                appendTokens(text, function.start.getTokenIndex(), interfaceStop(function));
+                text.append('\n');
+            }
+            return digest(text.toString());
+        }
+
+        String fingerprint(ParserRuleContext declaration, String name) {
+            int start = declaration.start.getTokenIndex();
+            int stop = declaration.stop.getTokenIndex();
+            StringBuilder text = new StringBuilder(name).append('\n');
+            appendTokensWithRelativeLines(text, start, stop);
+            for (String identifier : identifiers(start, stop))
+                text.append('\n').append(identifier).append('=').append(interfaceOf(identifier));
+            return digest(text.toString());
+        }
+
+        private static String digest(String text) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder();
+                for (byte b : hash)
+                    hex.append(String.format("%02x", b));
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) { //every JVM has SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
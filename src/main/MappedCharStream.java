@@ -0,0 +1,120 @@
+package main;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+//A CharStream reading an ASCII source file straight from a memory-mapped buffer,
+//one byte per character, instead of decoding it into an int[] of code points on the heap.
+//Token text is only copied out of the mapping when getText is called. The file must not
+//be truncated while the stream is in use, so long-running processes read files onto the heap.
+public class MappedCharStream implements CharStream {
+    private final ByteBuffer buffer;
+    private final int size;
+    private final String sourceName;
+    private int position = 0;
+
+    public MappedCharStream(ByteBuffer buffer, String sourceName) {
+        this.buffer = buffer;
+        this.size = buffer.limit();
+        this.sourceName = sourceName;
+    }
+
+    //Maps the file if it is plain ASCII (which is also valid UTF-8); files with other
+    //bytes, or too large to map, are decoded as UTF-8 by CharStreams as before.
+    public static CharStream fromFileName(String fileName) throws IOException {
+        Path path = Paths.get(fileName);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length == 0 || length > Integer.MAX_VALUE)
+                return CharStreams.fromPath(path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (!isAscii(buffer))
+                return CharStreams.fromPath(path);
+            return new MappedCharStream(buffer, fileName);
+        }
+    }
+
+    private static boolean isAscii(ByteBuffer buffer) {
+        for (int i = 0; i < buffer.limit(); i++)
+            if (buffer.get(i) < 0)
+                return false;
+        return true;
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size)
+            throw new IllegalStateException("cannot consume EOF");
+        position += 1;
+    }
+
+    @Override
+    public int LA(int i) {
+        int offset;
+        if (i > 0)
+            offset = position + i - 1;
+        else if (i < 0)
+            offset = position + i;
+        else
+            return 0;
+        if (offset < 0 || offset >= size)
+            return IntStream.EOF;
+        return buffer.get(offset);
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = Math.min(index, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName == null || sourceName.isEmpty() ? IntStream.UNKNOWN_SOURCE_NAME : sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.min(interval.a, size);
+        int stop = Math.min(interval.b, size - 1);
+        if (stop < start)
+            return "";
+        char[] text = new char[stop - start + 1];
+        for (int i = start; i <= stop; i++)
+            text[i - start] = (char) buffer.get(i);
+        return new String(text);
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
@@ -0,0 +1,143 @@
+package main;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import parsers.CmmLexer;
+import parsers.CmmParser;
+
+//Prediction DFA and context cache shared by every parser created through it.
+//Unlike the static caches generated into CmmParser, these can be warmed up
+//ahead of the first compilation and cleared in long-running processes.
+public class ParserCache {
+    private static final ParserCache shared = new ParserCache();
+
+    //covers every grammar rule, so that warm-up builds DFA states for each decision;
+    //samples/sample8.cmm is a copy, keep them in sync
+    private static final String WARM_UP_CORPUS =
+            "struct Point begin\n" +
+            "    int x, y = 1\n" +
+            "    list #int coords\n" +
+            "    fptr<int, bool -> int> callback\n" +
+            "    bool visible (int a, bool b) begin\n" +
+            "        set begin\n" +
+            "            visible = b & a > 0\n" +
+            "        end\n" +
+            "        get begin\n" +
+            "            return visible\n" +
+            "        end\n" +
+            "    end\n" +
+            "end\n" +
+            "\n" +
+            "struct Line\n" +
+            "    struct Point start;\n" +
+            "\n" +
+            "struct Point move(struct Point p, int dx, list #list #int grid) begin\n" +
+            "    int i = 0; bool done = false\n" +
+            "    while i < size(p.coords) begin\n" +
+            "        if p.coords[i] == dx | ~done\n" +
+            "            p.coords[i] = (p.coords[i] + dx) * 2 - -1 / 3\n" +
+            "        else begin\n" +
+            "            append(p.coords, i)\n" +
+            "            done = true\n" +
+            "        end\n" +
+            "        i = i + 1\n" +
+            "    end\n" +
+            "    do begin\n" +
+            "        i = i - 1\n" +
+            "    end\n" +
+            "    while i > 0\n" +
+            "    if done\n" +
+            "        display(grid[0][i])\n" +
+            "    return p\n" +
+            "end\n" +
+            "\n" +
+            "void log(fptr<void -> void> f) begin\n" +
+            "    f()\n" +
+            "    log(f); display(size(append(l, 1)))\n" +
+            "end\n" +
+            "\n" +
+            "main() begin\n" +
+            "    struct Point p\n" +
+            "    p = move(p, 1, g)\n" +
+            "    p.callback(1, true)\n" +
+            "    a = b = (c, d)\n" +
+            "    append(p.coords, 2)\n" +
+            "    size(p.coords)\n" +
+            "    return\n" +
+            "end\n";
+
+    private final ATN atn = CmmParser._ATN;
+    private volatile DFA[] decisionToDFA;
+    private volatile PredictionContextCache contextCache;
+
+    public ParserCache() {
+        clear();
+    }
+
+    public static ParserCache shared() {
+        return shared;
+    }
+
+    public static String getWarmUpCorpus() {
+        return WARM_UP_CORPUS;
+    }
+
+    public CmmParser newParser(TokenStream tokenStream) {
+        CmmParser parser = new CmmParser(tokenStream);
+        parser.setInterpreter(new ParserATNSimulator(parser, atn, decisionToDFA, contextCache));
+        return parser;
+    }
+
+    //Parsers created before a clear keep using the old states until they are done:
+    //the states are replaced by new arrays, never reset in place.
+    public synchronized void clear() {
+        DFA[] decisionToDFA = new DFA[atn.getNumberOfDecisions()];
+        for (int i = 0; i < decisionToDFA.length; i++)
+            decisionToDFA[i] = new DFA(atn.getDecisionState(i), i);
+        this.decisionToDFA = decisionToDFA;
+        contextCache = new PredictionContextCache();
+    }
+
+    public int getNumberOfDFAStates() {
+        int numberOfStates = 0;
+        for (DFA dfa : decisionToDFA)
+            numberOfStates += dfa.states.size();
+        return numberOfStates;
+    }
+
+    public int getContextCacheSize() {
+        return contextCache.size();
+    }
+
+    //clears the caches once they grow past the given bounds; returns true if they were cleared
+    public synchronized boolean trim(int maxDFAStates, int maxContextCacheSize) {
+        if (getNumberOfDFAStates() <= maxDFAStates && getContextCacheSize() <= maxContextCacheSize)
+            return false;
+        clear();
+        return true;
+    }
+
+    public void warmUp() {
+        warmUp(WARM_UP_CORPUS);
+    }
+
+    //parses the source in both SLL and LL prediction modes to fill the DFA
+    public void warmUp(String source) {
+        for (PredictionMode predictionMode : new PredictionMode[]{PredictionMode.SLL, PredictionMode.LL}) {
+            CmmLexer lexer = new CmmLexer(CharStreams.fromString(source));
+            lexer.removeErrorListeners();
+            CmmParser parser = newParser(new CommonTokenStream(lexer));
+            parser.removeErrorListeners();
+            parser.getInterpreter().setPredictionMode(predictionMode);
+            try {
+                parser.cmm();
+            } catch (RuntimeException ignored) {
+                //actions may fail on recovered input; the DFA states are kept anyway
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package main.ast.nodes.declaration;
 import main.ast.nodes.expression.Identifier;
 import main.ast.nodes.statement.Statement;
 import main.ast.types.*;
+import main.symbolTable.SymbolTable;
 import main.visitor.IVisitor;
 
 import java.util.*;
@@ -13,6 +14,8 @@ public class FunctionDeclaration extends Declaration {
     private ArrayList<VariableDeclaration> args = new ArrayList<>();
     private Statement body;
     private Type returnType;
+    //the scope of the arguments and body, built by NameAnalyser and reused by TypeChecker
+    private SymbolTable scope;
 
 
     public Identifier getFunctionName() {
@@ -46,6 +49,13 @@ public class FunctionDeclaration extends Declaration {
         this.returnType = returnType;
     }
 
+    public SymbolTable getScope() {
+        return scope;
+    }
+    public void setScope(SymbolTable scope) {
+        this.scope = scope;
+    }
+
     @Override
     public String toString() {
         return "FunctionDeclaration_" + this.functionName.getName();
@@ -1,11 +1,14 @@
 package main.ast.nodes.declaration;
 
 import main.ast.nodes.statement.Statement;
+import main.symbolTable.SymbolTable;
 import main.visitor.IVisitor;
 
 //line -> MAIN
 public class MainDeclaration extends Declaration{
     protected Statement body;
+    //the scope of the body, built by NameAnalyser and reused by TypeChecker
+    private SymbolTable scope;
 
     public Statement getBody() {
         return body;
@@ -14,6 +17,13 @@ public class MainDeclaration extends Declaration{
         this.body = body;
     }
 
+    public SymbolTable getScope() {
+        return scope;
+    }
+    public void setScope(SymbolTable scope) {
+        this.scope = scope;
+    }
+
     @Override
     public String toString() {
         return "MainDeclaration";
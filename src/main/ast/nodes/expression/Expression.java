@@ -2,6 +2,19 @@ package main.ast.nodes.expression;
 
 
 import main.ast.nodes.Node;
+import main.ast.types.Type;
 
 public abstract class Expression extends Node {
+    private Type type;
+
+    //The type ExpressionTypeChecker computed for the expression, NoType where it is in error,
+    //so later passes need not check it again. null for an expression that was not type
+    //checked: one in a program with name errors, an argument of a call with the wrong number
+    //of arguments, or one in a declaration whose diagnostics IncrementalCompiler reused.
+    public Type getType() {
+        return type;
+    }
+    public void setType(Type type) {
+        this.type = type;
+    }
 }
@@ -1,10 +1,14 @@
 package main.ast.nodes.expression;
 
+import main.symbolTable.Binding;
+import main.symbolTable.SymbolNames;
 import main.visitor.IVisitor;
 
 //line -> IDENTIFIER
 public class Identifier extends Expression{
     private String name;
+    private int nameId = -1;
+    private Binding binding;
 
     public Identifier(String name) {
         this.name = name;
@@ -15,6 +19,22 @@ public class Identifier extends Expression{
     }
     public void setName(String name) {
         this.name = name;
+        this.nameId = -1;
+    }
+
+    //the SymbolNames id of the name, used as the symbol table key
+    public int getNameId() {
+        if (nameId < 0)
+            nameId = SymbolNames.idOf(name);
+        return nameId;
+    }
+
+    //set by NameAnalyser in function and main bodies; null where names are not resolved in advance
+    public Binding getBinding() {
+        return binding;
+    }
+    public void setBinding(Binding binding) {
+        this.binding = binding;
     }
 
     @Override
@@ -1,10 +1,12 @@
 package main.ast.nodes.expression;
 
+import main.symbolTable.Binding;
 import main.visitor.IVisitor;
 
 public class StructAccess extends Expression {
     private Expression instance;
     private Identifier element;
+    private Binding binding;
 
     public StructAccess(Expression instance, Identifier element) {
         this.instance = instance;
@@ -27,6 +29,15 @@ public class StructAccess extends Expression {
         this.element = element;
     }
 
+    //the member, with its struct as owner, when NameAnalyser could tell the struct of the instance
+    public Binding getBinding() {
+        return binding;
+    }
+
+    public void setBinding(Binding binding) {
+        this.binding = binding;
+    }
+
     @Override
     public String toString() {
         return "StructAccess";
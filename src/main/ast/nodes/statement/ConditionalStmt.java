@@ -1,6 +1,7 @@
 package main.ast.nodes.statement;
 
 import main.ast.nodes.expression.Expression;
+import main.symbolTable.SymbolTable;
 import main.visitor.IVisitor;
 
 //line -> IF
@@ -8,6 +9,9 @@ public class ConditionalStmt extends Statement{
     private Expression condition;
     private Statement thenBody;
     private Statement elseBody;
+    //the scopes of the branches, built by NameAnalyser and reused by TypeChecker
+    private SymbolTable thenScope;
+    private SymbolTable elseScope;
 
     public ConditionalStmt(Expression expression) {
         this.condition = expression;
@@ -37,6 +41,22 @@ public class ConditionalStmt extends Statement{
         this.elseBody = elseBody;
     }
 
+    public SymbolTable getThenScope() {
+        return thenScope;
+    }
+
+    public void setThenScope(SymbolTable thenScope) {
+        this.thenScope = thenScope;
+    }
+
+    public SymbolTable getElseScope() {
+        return elseScope;
+    }
+
+    public void setElseScope(SymbolTable elseScope) {
+        this.elseScope = elseScope;
+    }
+
     @Override
     public String toString() {
         return "ConditionalStmt";
@@ -1,12 +1,15 @@
 package main.ast.nodes.statement;
 
 import main.ast.nodes.expression.Expression;
+import main.symbolTable.SymbolTable;
 import main.visitor.IVisitor;
 
 //line -> in do...while : do  , in while : while
 public class LoopStmt extends Statement {
     private Expression condition;
     private Statement body;
+    //the scope of the body, built by NameAnalyser and reused by TypeChecker
+    private SymbolTable scope;
 
     public Expression getCondition() {
         return condition;
@@ -22,6 +25,13 @@ public class LoopStmt extends Statement {
         this.body = body;
     }
 
+    public SymbolTable getScope() {
+        return scope;
+    }
+    public void setScope(SymbolTable scope) {
+        this.scope = scope;
+    }
+
     @Override
     public String toString() {
         return "LoopStmt";
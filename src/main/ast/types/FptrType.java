@@ -11,17 +11,24 @@ public class FptrType extends Type {
         this.returnType = returnType;
     }
 
+    //the list of an interned type must not be modified either
     public ArrayList<Type> getArgsType() { return argsType; }
-    public void setArgsType(ArrayList<Type> argsTypes) { this.argsType = argsTypes; }
-    public void addArgType(Type type) { this.argsType.add(type); }
+    public void setArgsType(ArrayList<Type> argsTypes) { checkMutable(); this.argsType = argsTypes; }
+    public void addArgType(Type type) { checkMutable(); this.argsType.add(type); }
 
     public Type getReturnType() {
         return returnType;
     }
     public void setReturnType(Type returnType) {
+        checkMutable();
         this.returnType = returnType;
     }
 
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.FPTR;
+    }
+
     @Override
     public String toString() {
         return "FptrType";
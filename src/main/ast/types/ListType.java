@@ -11,9 +11,15 @@ public class ListType extends Type {
         return elementType;
     }
     public void setType(Type elementType) {
+        checkMutable();
         this.elementType = elementType;
     }
 
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.LIST;
+    }
+
     @Override
     public String toString() {
         return "ListType";
@@ -1,6 +1,11 @@
 package main.ast.types;
 
 public class NoType extends Type {
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.NO_TYPE;
+    }
+
     @Override
     public String toString() {
         return "NoType";
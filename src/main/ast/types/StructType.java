@@ -11,9 +11,15 @@ public class StructType extends Type {
 
     public Identifier getStructName() { return structName; }
     public void setStructName(Identifier structName) {
+        checkMutable();
         this.structName = structName;
     }
 
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.STRUCT;
+    }
+
     @Override
     public String toString() {
         return "StructType_" + this.structName.getName();
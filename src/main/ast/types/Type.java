@@ -1,5 +1,17 @@
 package main.ast.types;
 
 public abstract class Type {
+    //set on the canonical instances made by TypeFactory, with an id unique among them
+    boolean interned = false;
+    int id = -1;
+
+    public abstract TypeKind getKind();
+
+    //interned types are shared by every holder, so their setters refuse to change them
+    protected void checkMutable() {
+        if (interned)
+            throw new IllegalStateException("An interned " + this + " cannot be modified");
+    }
+
     public abstract String toString();
 }
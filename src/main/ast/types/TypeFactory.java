@@ -0,0 +1,128 @@
+package main.ast.types;
+
+import main.ast.nodes.expression.Identifier;
+import main.ast.types.primitives.BoolType;
+import main.ast.types.primitives.IntType;
+import main.ast.types.primitives.VoidType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Hash-consed types: every primitive is a singleton and list, fptr and struct types are
+//interned by structure, so two types built from the same structure are the same object.
+//The checkers then compare types by reference and allocate none for the expressions they
+//check. Interned types are shared by all compilations, like SymbolNames, and their setters
+//throw, so that no holder can change them for the others. Types built by the parser are
+//not interned; intern maps them to their canonical instance.
+public final class TypeFactory {
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    public static final IntType INT = markInterned(new IntType());
+    public static final BoolType BOOL = markInterned(new BoolType());
+    public static final VoidType VOID = markInterned(new VoidType());
+    public static final NoType NO_TYPE = markInterned(new NoType());
+
+    //the parts of a list or fptr type are interned, so they are compared by reference
+    private static final class Key {
+        private final Class<? extends Type> kind;
+        private final Object[] parts;
+        private final int hash;
+
+        Key(Class<? extends Type> kind, Object... parts) {
+            this.kind = kind;
+            this.parts = parts;
+            this.hash = kind.hashCode() * 31 + Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).kind == kind && Arrays.equals(((Key) other).parts, parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final ConcurrentHashMap<Key, Type> types = new ConcurrentHashMap<>();
+
+    private TypeFactory() {
+    }
+
+    private static <T extends Type> T markInterned(T type) {
+        type.id = nextId.getAndIncrement();
+        type.interned = true;
+        return type;
+    }
+
+    //a dense id of an interned type, or -1 for a type that is not interned
+    public static int idOf(Type type) {
+        return type.id;
+    }
+
+    public static ListType listOf(Type elementType) {
+        Type element = intern(elementType);
+        return (ListType) types.computeIfAbsent(new Key(ListType.class, element),
+                key -> markInterned(new ListType(element)));
+    }
+
+    //The parser gives fptr<void -> ...> a single void argument; it is the type of functions
+    //without arguments, so it is interned as one without arguments.
+    public static FptrType fptrOf(List<Type> argTypes, Type returnType) {
+        if (argTypes.size() == 1 && argTypes.get(0) instanceof VoidType)
+            argTypes = Collections.emptyList();
+        List<Type> args = argTypes;
+        Object[] parts = new Object[args.size() + 1];
+        for (int i = 0; i < args.size(); i++)
+            parts[i] = intern(args.get(i));
+        parts[args.size()] = intern(returnType);
+        return (FptrType) types.computeIfAbsent(new Key(FptrType.class, parts), key -> {
+            ArrayList<Type> canonicalArgs = new ArrayList<>(args.size());
+            for (int i = 0; i < args.size(); i++)
+                canonicalArgs.add((Type) parts[i]);
+            return markInterned(new FptrType(canonicalArgs, (Type) parts[args.size()]));
+        });
+    }
+
+    public static StructType structOf(String structName) {
+        return (StructType) types.computeIfAbsent(new Key(StructType.class, structName),
+                key -> markInterned(new StructType(new Identifier(structName))));
+    }
+
+    //the canonical instance of type; null stays null
+    public static Type intern(Type type) {
+        if (type == null || type.interned)
+            return type;
+        if (type instanceof IntType)
+            return INT;
+        if (type instanceof BoolType)
+            return BOOL;
+        if (type instanceof VoidType)
+            return VOID;
+        if (type instanceof ListType)
+            return listOf(((ListType) type).getType());
+        if (type instanceof FptrType)
+            return fptrOf(((FptrType) type).getArgsType(), ((FptrType) type).getReturnType());
+        if (type instanceof StructType)
+            return structOf(((StructType) type).getStructName().getName());
+        return NO_TYPE;
+    }
+
+    public static int size() {
+        return types.size();
+    }
+
+    //Forgets the interned list, fptr and struct types, so that a long-running process does not
+    //keep every type it ever saw. The types of earlier compilations stay valid but are no longer
+    //the canonical ones, so this may only be called while no compilation runs, and the ASTs and
+    //symbol tables built before must be dropped. Struct types hold SymbolNames ids, so this is
+    //needed whenever SymbolNames is cleared.
+    public static void clear() {
+        types.clear();
+    }
+}
@@ -0,0 +1,7 @@
+package main.ast.types;
+
+//What kind of type a Type is, without its structure; see Type.getKind. The checkers index
+//their operator tables by it instead of testing instanceof.
+public enum TypeKind {
+    INT, BOOL, VOID, NO_TYPE, LIST, FPTR, STRUCT
+}
@@ -1,8 +1,14 @@
 package main.ast.types.primitives;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class BoolType extends Type {
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.BOOL;
+    }
+
     @Override
     public String toString() {
         return "BoolType";
@@ -1,8 +1,14 @@
 package main.ast.types.primitives;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class IntType extends Type {
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.INT;
+    }
+
     @Override
     public String toString() {
         return "IntType";
@@ -1,8 +1,14 @@
 package main.ast.types.primitives;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class VoidType extends Type {
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.VOID;
+    }
+
     @Override
     public String toString() {
         return "VoidType";
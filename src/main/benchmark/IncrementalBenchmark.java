@@ -0,0 +1,86 @@
+package main.benchmark;
+
+import main.CmmCompiler;
+import main.CompilationResult;
+import main.IncrementalCompiler;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+//Replays random edits on a generated program and compiles every version both from scratch
+//and with IncrementalCompiler, checking that the diagnostics are identical.
+//The edits change a number on one line, insert an empty line, or insert a statement with a
+//type error, so unchanged, shifted and broken declarations all occur.
+//usage: IncrementalBenchmark [edits] [functions] [seed]
+public class IncrementalBenchmark {
+
+    private static String edit(String source, Random random) {
+        ArrayList<String> lines = new ArrayList<>(Arrays.asList(source.split("\n", -1)));
+        int choice = random.nextInt(3);
+        if (choice == 0) {
+            for (int attempt = 0; attempt < 100; attempt++) {
+                int index = random.nextInt(lines.size());
+                String line = lines.get(index);
+                if (line.matches(".*\\(\\d+\\).*")) {
+                    lines.set(index, line.replaceFirst("\\(\\d+\\)", "(" + random.nextInt(100) + ")"));
+                    break;
+                }
+            }
+        }
+        else if (choice == 1)
+            lines.add(random.nextInt(lines.size()), "");
+        else {
+            for (int attempt = 0; attempt < 100; attempt++) {
+                int index = random.nextInt(lines.size());
+                String line = lines.get(index);
+                if (line.trim().startsWith("display(")) {
+                    String indent = line.substring(0, line.indexOf("display("));
+                    lines.add(index, indent + "int edited" + index + " = true");
+                    break;
+                }
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    public static void main(String[] args) {
+        int edits = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int functions = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        Random random = new Random(seed);
+        String source = new ProgramGenerator(seed).setNumberOfStructs(functions / 10)
+                .setNumberOfFunctions(functions).setStatementsPerFunction(12).generate();
+
+        IncrementalCompiler incrementalCompiler = new IncrementalCompiler(null);
+        incrementalCompiler.compile(CharStreams.fromString(source));
+        long fullNanos = 0, incrementalNanos = 0;
+        int mismatches = 0, reused = 0, checked = 0, restored = 0;
+        for (int i = 0; i < edits; i++) {
+            source = edit(source, random);
+            long start = System.nanoTime();
+            CompilationResult full = new CmmCompiler(null).compile(CharStreams.fromString(source));
+            fullNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            CompilationResult incremental = incrementalCompiler.compile(CharStreams.fromString(source));
+            incrementalNanos += System.nanoTime() - start;
+            reused += incrementalCompiler.getNumberOfReusedDeclarations();
+            checked += incrementalCompiler.getNumberOfCheckedDeclarations();
+            if (incrementalCompiler.wereGlobalsRestored())
+                restored += 1;
+            if (!full.getErrors().equals(incremental.getErrors())) {
+                mismatches += 1;
+                System.out.println("Edit " + i + ": full compile reported " + full.getErrors()
+                        + " but incremental compile reported " + incremental.getErrors());
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d edits, %d mismatches, %d declarations reused, %d checked again, globals restored %d times%n",
+                edits, mismatches, reused, checked, restored);
+        System.out.printf(Locale.ROOT, "full: %.3f ms/edit, incremental: %.3f ms/edit%n",
+                fullNanos / 1e6 / edits, incrementalNanos / 1e6 / edits);
+        if (mismatches > 0)
+            System.exit(1);
+    }
+}
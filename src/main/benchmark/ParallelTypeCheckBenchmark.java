@@ -0,0 +1,63 @@
+package main.benchmark;
+
+import main.CmmCompiler;
+import main.CompilationResult;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.util.Locale;
+
+//Compiles generated programs with type errors both with TypeChecker and with
+//ParallelTypeChecker, checking that the diagnostics are identical and in the same order.
+//Every other program starts with a struct whose member has an undeclared struct type, so
+//the struct bodies are checked one by one there. Then both are timed on a huge program.
+//usage: ParallelTypeCheckBenchmark [programs] [functions] [rounds]
+public class ParallelTypeCheckBenchmark {
+
+    private static CompilationResult compile(String source, boolean parallel) {
+        CmmCompiler compiler = new CmmCompiler(null);
+        compiler.setParallelTypeChecking(parallel);
+        return compiler.compile(CharStreams.fromString(source));
+    }
+
+    private static double millisPerCompile(String source, boolean parallel, int rounds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+            compile(source, parallel);
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+
+    public static void main(String[] args) {
+        int programs = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int functions = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        int mismatches = 0, errors = 0;
+        for (int seed = 1; seed <= programs; seed++) {
+            String source = new ProgramGenerator(seed).setNumberOfStructs(10).setNumberOfFunctions(60)
+                    .setStatementsPerFunction(12).setNumberOfTypeErrors(seed % 20).generate();
+            if (seed % 2 == 0)
+                source = "struct Undeclared begin\n    struct Missing m\nend\n\n" + source;
+            CompilationResult serial = compile(source, false);
+            CompilationResult parallel = compile(source, true);
+            errors += serial.getErrors().size();
+            if (!serial.getErrors().equals(parallel.getErrors())) {
+                mismatches += 1;
+                System.out.println("Program " + seed + ": TypeChecker reported " + serial.getErrors()
+                        + " but ParallelTypeChecker reported " + parallel.getErrors());
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d programs, %d errors, %d mismatches%n", programs, errors, mismatches);
+
+        String huge = new ProgramGenerator(1).setNumberOfStructs(functions / 10)
+                .setNumberOfFunctions(functions).setStatementsPerFunction(15).generate();
+        for (int warmup = 0; warmup < 3; warmup++) {
+            millisPerCompile(huge, false, rounds);
+            millisPerCompile(huge, true, rounds);
+        }
+        System.out.printf(Locale.ROOT, "%d functions on %d threads: serial %.3f ms/compile, parallel %.3f ms/compile%n",
+                functions, Runtime.getRuntime().availableProcessors(),
+                millisPerCompile(huge, false, rounds), millisPerCompile(huge, true, rounds));
+        if (mismatches > 0)
+            System.exit(1);
+    }
+}
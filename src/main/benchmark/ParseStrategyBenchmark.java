@@ -0,0 +1,85 @@
+package main.benchmark;
+
+import main.CmmCompiler;
+import main.CompilationResult;
+import main.ParserCache;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import parsers.CmmLexer;
+import parsers.CmmParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+//Compares full LL parsing with the two-stage SLL-then-LL strategy of CmmCompiler.
+//usage: ParseStrategyBenchmark [iterations] [files...]
+//Without files, a large program is built by repeating a function template, and a
+//second one is generated by ProgramGenerator; both have if statements with an else.
+public class ParseStrategyBenchmark {
+    private static final String FUNCTION_TEMPLATE =
+            "int f%d(int a, int b, list #int l) begin\n" +
+            "    int c = a * b + (a - b) / 2, d\n" +
+            "    bool e = ~(a > b) & (a == b) | c < a\n" +
+            "    while c > 0 begin\n" +
+            "        if c == a + b * 2\n" +
+            "            c = c - f%d(a, b, l)\n" +
+            "        else\n" +
+            "            c = c - 1\n" +
+            "        c = c - size(l) - l[0] - l[c / 2]\n" +
+            "        append(l, c)\n" +
+            "    end\n" +
+            "    return c + a * -b\n" +
+            "end\n\n";
+
+    public static String largeProgram(int numberOfFunctions) {
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < numberOfFunctions; i++)
+            program.append(String.format(FUNCTION_TEMPLATE, i, Math.max(0, i - 1)));
+        program.append("main() begin\n    display(f0(1, 2, l))\nend\n");
+        return program.toString();
+    }
+
+    private static long parse(String source, boolean twoStage) {
+        CmmCompiler compiler = new CmmCompiler(null);
+        compiler.setTwoStageParsing(twoStage);
+        CmmLexer lexer = new CmmLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+        CmmParser parser = ParserCache.shared().newParser(tokenStream);
+        parser.removeErrorListeners();
+        long start = System.nanoTime();
+        compiler.parse(parser, tokenStream, new CompilationResult("benchmark"));
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        ArrayList<String> sources = new ArrayList<>();
+        for (int i = 1; i < args.length; i++)
+            sources.add(new String(Files.readAllBytes(Paths.get(args[i]))));
+        if (sources.isEmpty()) {
+            sources.add(largeProgram(2000));
+            sources.add(new ProgramGenerator(1).setNumberOfFunctions(300).generate());
+        }
+
+        for (int i = 0; i < 3; i++)
+            for (String source : sources) {
+                parse(source, false);
+                parse(source, true);
+            }
+
+        long llNanos = 0, twoStageNanos = 0;
+        for (int i = 0; i < iterations; i++)
+            for (String source : sources) {
+                llNanos += parse(source, false);
+                twoStageNanos += parse(source, true);
+            }
+
+        System.out.printf("LL:         %.2f ms/iteration%n", llNanos / 1e6 / iterations);
+        System.out.printf("SLL then LL: %.2f ms/iteration%n", twoStageNanos / 1e6 / iterations);
+        System.out.printf("Speedup:    %.2fx%n", (double) llNanos / twoStageNanos);
+        System.out.println(CmmCompiler.parseStatistics());
+    }
+}
@@ -0,0 +1,181 @@
+package main.benchmark;
+
+import main.CmmCompiler;
+import main.CompilationContext;
+import main.CompilationResult;
+import main.ParserCache;
+import main.ast.nodes.Program;
+import main.visitor.ErrorReporter;
+import main.visitor.name.NameAnalyser;
+import main.visitor.type.ParallelTypeChecker;
+import main.visitor.type.TypeChecker;
+import org.antlr.v4.runtime.*;
+import parsers.CmmLexer;
+import parsers.CmmParser;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Measures each stage of CmmCompiler.compile separately, plus the whole pipeline,
+//on small, medium and huge inputs. Only the stage itself is timed: the work needed
+//to reach it (lexing, parsing, earlier visitors) is redone untimed before every operation.
+//Reports throughput and allocation per operation, measured on the benchmark thread.
+//usage: PipelineBenchmark [warmup seconds] [measurement seconds] [stage] [input]
+public class PipelineBenchmark {
+
+    private static final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static abstract class Stage<S> {
+        final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        abstract S setUp(String source);
+        abstract Object run(S state);
+    }
+
+    private static class Analysed {
+        final Program program;
+        final CompilationContext context;
+
+        Analysed(Program program, CompilationContext context) {
+            this.program = program;
+            this.context = context;
+        }
+    }
+
+    private static List<Token> lex(String source) {
+        CmmLexer lexer = new CmmLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+        tokenStream.fill();
+        return tokenStream.getTokens();
+    }
+
+    private static Program parse(List<Token> tokens) {
+        CommonTokenStream tokenStream = new CommonTokenStream(new ListTokenSource(tokens));
+        CmmParser parser = ParserCache.shared().newParser(tokenStream);
+        parser.removeErrorListeners();
+        return new CmmCompiler(null).parse(parser, tokenStream, new CompilationResult("benchmark"));
+    }
+
+    private static Analysed analyseNames(String source) {
+        Program program = parse(lex(source));
+        CompilationContext context = new CompilationContext();
+        program.accept(new NameAnalyser(context));
+        program.accept(new ErrorReporter(context, null));
+        return new Analysed(program, context);
+    }
+
+    private static final ArrayList<Stage<?>> stages = new ArrayList<>();
+
+    static {
+        stages.add(new Stage<String>("lexer") {
+            String setUp(String source) { return source; }
+            Object run(String source) { return lex(source); }
+        });
+        stages.add(new Stage<List<Token>>("parser") {
+            List<Token> setUp(String source) { return lex(source); }
+            Object run(List<Token> tokens) { return parse(tokens); }
+        });
+        stages.add(new Stage<Program>("NameAnalyser") {
+            Program setUp(String source) { return parse(lex(source)); }
+            Object run(Program program) {
+                program.accept(new NameAnalyser(new CompilationContext()));
+                return program;
+            }
+        });
+        stages.add(new Stage<Analysed>("TypeChecker") {
+            Analysed setUp(String source) { return analyseNames(source); }
+            Object run(Analysed analysed) {
+                analysed.program.accept(new TypeChecker(analysed.context));
+                return analysed;
+            }
+        });
+        //its tasks allocate on the pool's threads, which the allocation column does not count
+        stages.add(new Stage<Analysed>("ParallelTypeChecker") {
+            Analysed setUp(String source) { return analyseNames(source); }
+            Object run(Analysed analysed) {
+                analysed.program.accept(new ParallelTypeChecker(analysed.context));
+                return analysed;
+            }
+        });
+        stages.add(new Stage<Analysed>("ErrorReporter") {
+            Analysed setUp(String source) {
+                Analysed analysed = analyseNames(source);
+                analysed.program.accept(new TypeChecker(analysed.context));
+                return analysed;
+            }
+            Object run(Analysed analysed) {
+                return analysed.program.accept(new ErrorReporter(analysed.context, null));
+            }
+        });
+        stages.add(new Stage<String>("full pipeline") {
+            String setUp(String source) { return source; }
+            Object run(String source) { return new CmmCompiler(null).compile(CharStreams.fromString(source)); }
+        });
+    }
+
+    public static Map<String, String> inputs() throws IOException {
+        Map<String, String> inputs = new LinkedHashMap<>();
+        inputs.put("sample1", new String(Files.readAllBytes(Paths.get("samples/sample1.cmm"))));
+        inputs.put("small", new ProgramGenerator(1).setNumberOfStructs(2).setNumberOfFunctions(5).setStatementsPerFunction(8).generate());
+        inputs.put("medium", new ProgramGenerator(1).setNumberOfStructs(20).setNumberOfFunctions(100).setStatementsPerFunction(15).generate());
+        inputs.put("huge", new ProgramGenerator(1).setNumberOfStructs(200).setNumberOfFunctions(2000).setStatementsPerFunction(15).generate());
+        return inputs;
+    }
+
+    private static <S> double[] measure(Stage<S> stage, String source, long nanos) {
+        long operations = 0, elapsed = 0, allocated = 0;
+        long threadId = Thread.currentThread().getId();
+        Object sink = null;
+        while (elapsed < nanos || operations < 3) {
+            S state = stage.setUp(source);
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            try {
+                sink = stage.run(state);
+            } catch (RuntimeException e) {
+                //the visitors may fail on some inputs; the work done so far is still measured
+                sink = e;
+            }
+            elapsed += System.nanoTime() - start;
+            allocated += threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            operations += 1;
+        }
+        if (sink == null)
+            throw new IllegalStateException();
+        return new double[]{operations * 1e9 / elapsed, elapsed / 1e6 / operations, (double) allocated / operations, allocated * 1e3 / elapsed};
+    }
+
+    public static void main(String[] args) throws IOException {
+        double warmupSeconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        double measurementSeconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        String onlyStage = args.length > 2 ? args[2] : null;
+        String onlyInput = args.length > 3 ? args[3] : null;
+
+        System.out.printf("%-10s %-14s %12s %12s %14s %14s%n", "input", "stage", "ops/s", "ms/op", "KB/op", "alloc MB/s");
+        for (Map.Entry<String, String> input : inputs().entrySet()) {
+            if (onlyInput != null && !onlyInput.equals(input.getKey()))
+                continue;
+            for (Stage<?> stage : stages) {
+                if (onlyStage != null && !onlyStage.equals(stage.name))
+                    continue;
+                measure(stage, input.getValue(), (long) (warmupSeconds * 1e9));
+                double[] score = measure(stage, input.getValue(), (long) (measurementSeconds * 1e9));
+                System.out.printf(Locale.ROOT, "%-10s %-14s %12.2f %12.3f %14.1f %14.1f%n",
+                        input.getKey(), stage.name, score[0], score[1], score[2] / 1024, score[3]);
+            }
+        }
+    }
+}
@@ -0,0 +1,616 @@
+package main.benchmark;
+
+import main.ast.nodes.expression.Identifier;
+import main.ast.types.FptrType;
+import main.ast.types.ListType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.primitives.BoolType;
+import main.ast.types.primitives.IntType;
+import main.ast.types.primitives.VoidType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+//Seeded generator of large C-- programs covering the whole grammar: structs with
+//properties, fptr and list types, nested if/while/do blocks and deep expressions.
+//Programs are well-typed unless errors are requested; every injected name error and
+//type error is meant to produce exactly one diagnostic.
+//usage: ProgramGenerator [--seed n] [--structs n] [--functions n] [--statements n]
+//       [--nesting n] [--expression-depth n] [--name-errors n] [--type-errors n] [-o file]
+public class ProgramGenerator {
+
+    private static class Variable {
+        final String name;
+        final Type type;
+
+        Variable(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static class Struct {
+        final String name;
+        final ArrayList<Variable> members = new ArrayList<>();
+
+        Struct(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Function {
+        final String name;
+        final ArrayList<Type> argTypes = new ArrayList<>();
+        Type returnType;
+
+        Function(String name) {
+            this.name = name;
+        }
+
+        FptrType type() {
+            return new FptrType(argTypes, returnType);
+        }
+    }
+
+    private static final int CALL_ATTEMPTS = 16;
+
+    private final Random random;
+    private int numberOfStructs = 5;
+    private int numberOfFunctions = 10;
+    private int statementsPerFunction = 10;
+    private int nestingDepth = 2;
+    private int expressionDepth = 3;
+    private int numberOfNameErrors = 0;
+    private int numberOfTypeErrors = 0;
+
+    private final ArrayList<Struct> structs = new ArrayList<>();
+    private final ArrayList<Function> functions = new ArrayList<>();
+    private final ArrayList<ArrayList<Variable>> scopes = new ArrayList<>();
+    private final HashSet<String> conflictingNames = new HashSet<>();
+    private StringBuilder out;
+    private int nextId;
+    private int nameErrorsLeft;
+    private int typeErrorsLeft;
+    private int statementsLeft;
+
+    public ProgramGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public ProgramGenerator setNumberOfStructs(int numberOfStructs) { this.numberOfStructs = numberOfStructs; return this; }
+    public ProgramGenerator setNumberOfFunctions(int numberOfFunctions) { this.numberOfFunctions = numberOfFunctions; return this; }
+    public ProgramGenerator setStatementsPerFunction(int statementsPerFunction) { this.statementsPerFunction = statementsPerFunction; return this; }
+    public ProgramGenerator setNestingDepth(int nestingDepth) { this.nestingDepth = nestingDepth; return this; }
+    public ProgramGenerator setExpressionDepth(int expressionDepth) { this.expressionDepth = expressionDepth; return this; }
+    public ProgramGenerator setNumberOfNameErrors(int numberOfNameErrors) { this.numberOfNameErrors = numberOfNameErrors; return this; }
+    public ProgramGenerator setNumberOfTypeErrors(int numberOfTypeErrors) { this.numberOfTypeErrors = numberOfTypeErrors; return this; }
+
+    public String generate() {
+        structs.clear();
+        functions.clear();
+        scopes.clear();
+        out = new StringBuilder();
+        nextId = 0;
+        conflictingNames.clear();
+        nameErrorsLeft = numberOfNameErrors;
+        typeErrorsLeft = numberOfTypeErrors;
+        statementsLeft = (numberOfFunctions + 1) * statementsPerFunction;
+
+        for (int i = 0; i < numberOfStructs; i++)
+            declareStruct(i);
+        for (int i = 0; i < numberOfFunctions; i++)
+            functions.add(newFunction("f" + i));
+        for (Struct struct : structs)
+            writeStruct(struct);
+        for (Function function : functions)
+            writeFunction(function);
+        writeMain();
+        return out.toString();
+    }
+
+    //Types
+
+    private static String render(Type type) {
+        if (type instanceof IntType)
+            return "int";
+        if (type instanceof BoolType)
+            return "bool";
+        if (type instanceof VoidType)
+            return "void";
+        if (type instanceof ListType)
+            return "list #" + render(((ListType) type).getType());
+        if (type instanceof StructType)
+            return "struct " + ((StructType) type).getStructName().getName();
+        FptrType fptr = (FptrType) type;
+        StringBuilder text = new StringBuilder("fptr<");
+        if (fptr.getArgsType().isEmpty())
+            text.append("void");
+        for (int i = 0; i < fptr.getArgsType().size(); i++)
+            text.append(i == 0 ? "" : ", ").append(render(fptr.getArgsType().get(i)));
+        return text.append(" -> ").append(render(fptr.getReturnType())).append(">").toString();
+    }
+
+    private static boolean sameType(Type t1, Type t2) {
+        return render(t1).equals(render(t2));
+    }
+
+    private Type randomValueType(boolean allowStructs, boolean allowFptrs) {
+        int choice = random.nextInt(100);
+        if (choice < 40)
+            return new IntType();
+        if (choice < 60)
+            return new BoolType();
+        if (choice < 75)
+            return new ListType(random.nextBoolean() ? new IntType() : new BoolType());
+        if (choice < 80)
+            return new ListType(new ListType(new IntType()));
+        if (choice < 90 && allowStructs && !structs.isEmpty())
+            return structType(structs.get(random.nextInt(structs.size())));
+        if (allowFptrs && !functions.isEmpty())
+            return functions.get(random.nextInt(functions.size())).type();
+        return new IntType();
+    }
+
+    private static StructType structType(Struct struct) {
+        return new StructType(new Identifier(struct.name));
+    }
+
+    //Declarations
+
+    private String newName(String prefix) {
+        return prefix + (nextId++);
+    }
+
+    private void declareStruct(int index) {
+        Struct struct = new Struct("S" + index);
+        int numberOfMembers = 1 + random.nextInt(4);
+        for (int i = 0; i < numberOfMembers; i++) {
+            Type type;
+            //members only embed earlier structs, so there are no cyclic dependencies
+            if (index > 0 && random.nextInt(5) == 0)
+                type = structType(structs.get(random.nextInt(index)));
+            else
+                type = randomValueType(false, false);
+            struct.members.add(new Variable(newName("m"), type));
+        }
+        structs.add(struct);
+    }
+
+    private Function newFunction(String name) {
+        Function function = new Function(name);
+        int numberOfArgs = random.nextInt(4);
+        for (int i = 0; i < numberOfArgs; i++)
+            function.argTypes.add(random.nextInt(3) == 0 ? randomValueType(true, false) : (random.nextBoolean() ? new IntType() : new BoolType()));
+        int choice = random.nextInt(10);
+        function.returnType = choice < 2 ? new VoidType() : randomValueType(true, false);
+        return function;
+    }
+
+    //Output
+
+    private void line(int indent, String text) {
+        for (int i = 0; i < indent; i++)
+            out.append("    ");
+        out.append(text).append('\n');
+    }
+
+    private void writeStruct(Struct struct) {
+        line(0, "struct " + struct.name + " begin");
+        scopes.add(new ArrayList<>());
+        for (Variable member : struct.members) {
+            line(1, render(member.type) + " " + member.name);
+            scopes.get(0).add(member);
+        }
+        Type propertyType = random.nextBoolean() ? new IntType() : new BoolType();
+        String property = newName("p");
+        String arg = newName("a");
+        line(1, render(propertyType) + " " + property + " (" + render(propertyType) + " " + arg + ") begin");
+        line(2, "set begin");
+        scopes.add(new ArrayList<>());
+        scopes.get(1).add(new Variable(arg, propertyType));
+        line(3, property + " = " + expression(propertyType, expressionDepth));
+        scopes.remove(1);
+        line(2, "end");
+        line(2, "get begin");
+        line(3, "return " + expression(propertyType, expressionDepth));
+        line(2, "end");
+        line(1, "end");
+        struct.members.add(new Variable(property, propertyType));
+        scopes.clear();
+        line(0, "end");
+        line(0, "");
+    }
+
+    private void writeFunction(Function function) {
+        StringBuilder header = new StringBuilder(render(function.returnType) + " " + function.name + "(");
+        scopes.add(new ArrayList<>());
+        for (int i = 0; i < function.argTypes.size(); i++) {
+            Variable arg = new Variable(newName("a"), function.argTypes.get(i));
+            scopes.get(0).add(arg);
+            header.append(i == 0 ? "" : ", ").append(render(arg.type)).append(" ").append(arg.name);
+        }
+        line(0, header.append(") begin").toString());
+        if (!(function.returnType instanceof VoidType) && !canProduce(function.returnType))
+            declare(1, function.returnType, false);
+        writeStatements(1, statementsPerFunction, 0);
+        if (!(function.returnType instanceof VoidType))
+            line(1, "return " + expression(function.returnType, expressionDepth));
+        line(0, "end");
+        line(0, "");
+        scopes.clear();
+    }
+
+    private void writeMain() {
+        line(0, "main() begin");
+        scopes.add(new ArrayList<>());
+        writeStatements(1, statementsPerFunction, 0);
+        while (nameErrorsLeft > 0 || typeErrorsLeft > 0)
+            writeError(1);
+        scopes.clear();
+        line(0, "end");
+    }
+
+    //Statements
+
+    private void writeStatements(int indent, int count, int depth) {
+        for (int i = 0; i < count; i++) {
+            statementsLeft -= 1;
+            int errorsLeft = nameErrorsLeft + typeErrorsLeft;
+            if (errorsLeft > 0 && random.nextInt(Math.max(1, statementsLeft)) < errorsLeft)
+                writeError(indent);
+            else
+                writeStatement(indent, depth);
+        }
+    }
+
+    private void writeBlock(int indent, String head, int depth) {
+        line(indent, head + " begin");
+        scopes.add(new ArrayList<>());
+        writeStatements(indent + 1, 1 + random.nextInt(3), depth + 1);
+        scopes.remove(scopes.size() - 1);
+    }
+
+    private void writeStatement(int indent, int depth) {
+        int choice = random.nextInt(depth < nestingDepth ? 11 : 8);
+        switch (choice) {
+            case 0:
+            case 1:
+                declare(indent, randomValueType(true, true), true);
+                return;
+            case 2:
+            case 3: {
+                Variable target = lvalue(randomVariable(null));
+                if (target != null && canProduce(target.type)) {
+                    line(indent, target.name + " = " + expression(target.type, expressionDepth));
+                    return;
+                }
+                line(indent, "display(" + expression(new IntType(), expressionDepth) + ")");
+                return;
+            }
+            case 4:
+                line(indent, "display(" + expression(random.nextBoolean() ? new IntType() : new BoolType(), expressionDepth) + ")");
+                return;
+            case 5: {
+                Variable list = randomVariable(ListType.class);
+                if (list != null) {
+                    Type elementType = ((ListType) list.type).getType();
+                    if (canProduce(elementType)) {
+                        line(indent, "append(" + list.name + ", " + expression(elementType, expressionDepth) + ")");
+                        return;
+                    }
+                }
+                declare(indent, new ListType(new IntType()), false);
+                return;
+            }
+            case 6: {
+                Variable list = randomVariable(ListType.class);
+                if (list != null) {
+                    line(indent, "size(" + list.name + ")");
+                    return;
+                }
+                line(indent, "display(" + expression(new BoolType(), expressionDepth) + "); display(" + expression(new IntType(), 1) + ")");
+                return;
+            }
+            case 7: {
+                String call = call(null);
+                line(indent, call != null ? call : "display(" + expression(new IntType(), expressionDepth) + ")");
+                return;
+            }
+            case 8:
+                writeBlock(indent, "if " + expression(new BoolType(), expressionDepth), depth);
+                line(indent, "end");
+                if (random.nextBoolean()) {
+                    writeBlock(indent, "else", depth);
+                    line(indent, "end");
+                }
+                return;
+            case 9:
+                writeBlock(indent, "while " + expression(new BoolType(), expressionDepth), depth);
+                line(indent, "end");
+                return;
+            default:
+                writeBlock(indent, "do", depth);
+                line(indent, "end");
+                line(indent, "while " + expression(new BoolType(), expressionDepth));
+        }
+    }
+
+    private void declare(int indent, Type type, boolean withValue) {
+        Variable variable = new Variable(newName("v"), type);
+        String text = render(type) + " " + variable.name;
+        if (withValue && canProduce(type))
+            text += " = " + expression(type, expressionDepth);
+        scopes.get(scopes.size() - 1).add(variable);
+        line(indent, text);
+    }
+
+    private void writeError(int indent) {
+        boolean nameError = nameErrorsLeft > 0 && (typeErrorsLeft == 0 || random.nextBoolean());
+        if (nameError) {
+            nameErrorsLeft -= 1;
+            ArrayList<Variable> scope = scopes.get(scopes.size() - 1);
+            String function = functions.isEmpty() ? null : functions.get(random.nextInt(functions.size())).name;
+            if (!scope.isEmpty() && random.nextBoolean()) {
+                //DuplicateVar
+                Variable variable = scope.get(random.nextInt(scope.size()));
+                line(indent, "int " + variable.name);
+            }
+            else if (function != null && conflictingNames.add(function)) {
+                //VarFunctionConflict; each function is used once so no DuplicateVar is reported as well
+                line(indent, "int " + function);
+            }
+            else {
+                //DuplicateVar
+                String name = newName("v");
+                line(indent, "int " + name + "; bool " + name);
+            }
+            return;
+        }
+        typeErrorsLeft -= 1;
+        switch (random.nextInt(4)) {
+            case 0:
+                //VarNotDeclared
+                line(indent, "display(" + newName("undeclared") + ")");
+                return;
+            case 1:
+                //ConditionNotBool
+                line(indent, "while " + expression(new IntType(), expressionDepth) + " begin");
+                line(indent + 1, "display(1)");
+                line(indent, "end");
+                return;
+            case 2:
+                //UnsupportedOperandType for assign
+                line(indent, "int " + newName("v") + " = " + expression(new BoolType(), expressionDepth));
+                return;
+            default:
+                //GetSizeOfNonList
+                line(indent, "display(size(" + expression(new IntType(), expressionDepth) + "))");
+        }
+    }
+
+    //Expressions
+
+    private ArrayList<Variable> visibleVariables() {
+        ArrayList<Variable> variables = new ArrayList<>();
+        for (ArrayList<Variable> scope : scopes)
+            variables.addAll(scope);
+        return variables;
+    }
+
+    //a variable of the given type class, or of any type if typeClass is null
+    private Variable randomVariable(Class<? extends Type> typeClass) {
+        ArrayList<Variable> candidates = new ArrayList<>();
+        for (Variable variable : visibleVariables())
+            if (typeClass == null || typeClass.isInstance(variable.type))
+                candidates.add(variable);
+        return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    //the variable itself, one of its members or one of its elements
+    private Variable lvalue(Variable target) {
+        if (target == null)
+            return null;
+        if (target.type instanceof StructType && random.nextBoolean()) {
+            Struct struct = findStruct((StructType) target.type);
+            Variable member = struct.members.get(random.nextInt(struct.members.size()));
+            return new Variable(target.name + "." + member.name, member.type);
+        }
+        if (target.type instanceof ListType && random.nextBoolean())
+            return new Variable(target.name + "[" + intExpression(1) + "]", ((ListType) target.type).getType());
+        return target;
+    }
+
+    private Struct findStruct(StructType type) {
+        for (Struct struct : structs)
+            if (struct.name.equals(type.getStructName().getName()))
+                return struct;
+        return null;
+    }
+
+    private boolean canProduce(Type type) {
+        if (type instanceof IntType || type instanceof BoolType)
+            return true;
+        for (Variable variable : visibleVariables())
+            if (sameType(variable.type, type))
+                return true;
+        if (type instanceof FptrType)
+            for (Function function : functions)
+                if (sameType(function.type(), type))
+                    return true;
+        return false;
+    }
+
+    //a call to a function returning returnType (any non-void type if null), or null if none can be called
+    private String call(Type returnType) {
+        //sampling a bounded number of functions keeps generation linear in the program size
+        Function function = null;
+        for (int attempt = 0; attempt < CALL_ATTEMPTS && function == null && !functions.isEmpty(); attempt++) {
+            Function candidate = functions.get(random.nextInt(functions.size()));
+            if (returnType == null ? candidate.returnType instanceof VoidType : !sameType(candidate.returnType, returnType))
+                continue;
+            boolean callable = true;
+            for (Type argType : candidate.argTypes)
+                callable &= canProduce(argType);
+            if (callable)
+                function = candidate;
+        }
+        if (function == null)
+            return null;
+        StringBuilder text = new StringBuilder(function.name).append('(');
+        for (int i = 0; i < function.argTypes.size(); i++)
+            text.append(i == 0 ? "" : ", ").append(expression(function.argTypes.get(i), 0));
+        return text.append(')').toString();
+    }
+
+    private String expression(Type type, int depth) {
+        if (type instanceof IntType)
+            return intExpression(depth);
+        if (type instanceof BoolType)
+            return boolExpression(depth);
+        ArrayList<String> candidates = new ArrayList<>();
+        for (Variable variable : visibleVariables())
+            if (sameType(variable.type, type))
+                candidates.add(variable.name);
+        if (type instanceof FptrType)
+            for (Function function : functions)
+                if (sameType(function.type(), type))
+                    candidates.add(function.name);
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private String intLeaf() {
+        int choice = random.nextInt(6);
+        if (choice == 1 || choice == 2) {
+            Variable variable = randomVariableOfType(new IntType());
+            if (variable != null)
+                return variable.name;
+        }
+        if (choice == 3) {
+            Variable list = randomVariable(ListType.class);
+            if (list != null)
+                return "size(" + list.name + ")";
+        }
+        if (choice == 4) {
+            String access = memberAccess(new IntType());
+            if (access != null)
+                return access;
+        }
+        if (choice == 5) {
+            String call = call(new IntType());
+            if (call != null)
+                return call;
+        }
+        return Integer.toString(random.nextInt(100));
+    }
+
+    private String boolLeaf() {
+        int choice = random.nextInt(4);
+        if (choice == 1) {
+            Variable variable = randomVariableOfType(new BoolType());
+            if (variable != null)
+                return variable.name;
+        }
+        if (choice == 2) {
+            String access = memberAccess(new BoolType());
+            if (access != null)
+                return access;
+        }
+        if (choice == 3) {
+            String call = call(new BoolType());
+            if (call != null)
+                return call;
+        }
+        return random.nextBoolean() ? "true" : "false";
+    }
+
+    private Variable randomVariableOfType(Type type) {
+        ArrayList<Variable> candidates = new ArrayList<>();
+        for (Variable variable : visibleVariables())
+            if (sameType(variable.type, type))
+                candidates.add(variable);
+        return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    //s.m or l[i] yielding the given primitive type, or null if there is none in scope
+    private String memberAccess(Type type) {
+        ArrayList<String> candidates = new ArrayList<>();
+        for (Variable variable : visibleVariables()) {
+            if (variable.type instanceof StructType) {
+                Struct struct = findStruct((StructType) variable.type);
+                for (Variable member : struct.members)
+                    if (sameType(member.type, type))
+                        candidates.add(variable.name + "." + member.name);
+            }
+            if (variable.type instanceof ListType && sameType(((ListType) variable.type).getType(), type))
+                candidates.add(variable.name + "[" + random.nextInt(10) + "]");
+        }
+        return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private String intExpression(int depth) {
+        if (depth <= 0)
+            return intLeaf();
+        switch (random.nextInt(6)) {
+            case 0: return intExpression(depth - 1) + " + " + intExpression(depth - 1);
+            case 1: return intExpression(depth - 1) + " - " + intExpression(depth - 1);
+            case 2: return intExpression(depth - 1) + " * " + intExpression(depth - 1);
+            case 3: return "(" + intExpression(depth - 1) + ") / " + (1 + random.nextInt(9));
+            case 4: return "-(" + intExpression(depth - 1) + ")";
+            default: return "(" + intExpression(depth - 1) + ")";
+        }
+    }
+
+    private String boolExpression(int depth) {
+        if (depth <= 0)
+            return boolLeaf();
+        switch (random.nextInt(6)) {
+            case 0: return boolExpression(depth - 1) + " & " + boolExpression(depth - 1);
+            case 1: return boolExpression(depth - 1) + " | " + boolExpression(depth - 1);
+            case 2: return "~(" + boolExpression(depth - 1) + ")";
+            case 3: return intExpression(depth - 1) + " > " + intExpression(depth - 1);
+            case 4: return intExpression(depth - 1) + " < " + intExpression(depth - 1);
+            default: return "(" + intExpression(depth - 1) + " == " + intExpression(depth - 1) + ")";
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        String output = null;
+        ProgramGenerator generator = new ProgramGenerator(seed);
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = args[i].equals("-o") ? 0 : Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--seed": generator = copySettings(generator, new ProgramGenerator(value)); break;
+                case "--structs": generator.setNumberOfStructs(value); break;
+                case "--functions": generator.setNumberOfFunctions(value); break;
+                case "--statements": generator.setStatementsPerFunction(value); break;
+                case "--nesting": generator.setNestingDepth(value); break;
+                case "--expression-depth": generator.setExpressionDepth(value); break;
+                case "--name-errors": generator.setNumberOfNameErrors(value); break;
+                case "--type-errors": generator.setNumberOfTypeErrors(value); break;
+                case "-o": output = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        String program = generator.generate();
+        if (output == null)
+            System.out.print(program);
+        else
+            Files.write(Paths.get(output), program.getBytes());
+    }
+
+    private static ProgramGenerator copySettings(ProgramGenerator from, ProgramGenerator to) {
+        return to.setNumberOfStructs(from.numberOfStructs)
+                .setNumberOfFunctions(from.numberOfFunctions)
+                .setStatementsPerFunction(from.statementsPerFunction)
+                .setNestingDepth(from.nestingDepth)
+                .setExpressionDepth(from.expressionDepth)
+                .setNumberOfNameErrors(from.numberOfNameErrors)
+                .setNumberOfTypeErrors(from.numberOfTypeErrors);
+    }
+}
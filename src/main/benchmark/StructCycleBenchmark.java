@@ -0,0 +1,202 @@
+package main.benchmark;
+
+import main.CompilationContext;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.Identifier;
+import main.ast.nodes.statement.BlockStmt;
+import main.ast.nodes.statement.VarDecStmt;
+import main.ast.types.StructType;
+import main.compileError.CompileError;
+import main.compileError.nameError.CyclicDependency;
+import main.symbolTable.utils.graph.Graph;
+import main.symbolTable.utils.graph.exceptions.GraphDoesNotContainNodeException;
+import main.symbolTable.utils.graph.exceptions.NodeAlreadyExistsException;
+import main.visitor.name.NameAnalyser;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+//Scale checks for struct cycle detection. Graph.getNodesOnCycles is run on graphs of
+//many structs (a long chain, a ring, a chain ending in a cycle, random graphs) and its
+//result is checked against the expected one, and on small random graphs against
+//isSecondNodeAncestorOf, before and after freezing; topological orders are checked too.
+//Then NameAnalyser.declareGlobals is run on struct declarations built directly as an
+//AST, since parsing that many structs would dominate the run.
+//Exits with 1 if any check fails.
+//usage: StructCycleBenchmark [structs] [seed]
+public class StructCycleBenchmark {
+    private static int failures = 0;
+
+    private static String name(int i) {
+        return "S" + i;
+    }
+
+    private static Graph<String> graph(int size) throws NodeAlreadyExistsException {
+        Graph<String> graph = new Graph<>();
+        for (int i = 0; i < size; i++)
+            graph.addNode(name(i));
+        return graph;
+    }
+
+    private static void check(String shape, Graph<String> graph, Set<String> expected) {
+        long start = System.nanoTime();
+        Set<String> found = graph.getNodesOnCycles();
+        long elapsed = System.nanoTime() - start;
+        boolean ok = found.equals(expected);
+        if (!ok)
+            failures += 1;
+        System.out.printf(Locale.ROOT, "%-28s %8d on cycles %10.3f ms %s%n",
+                shape, found.size(), elapsed / 1e6, ok ? "ok" : "WRONG, expected " + expected.size());
+    }
+
+    private static Set<String> range(int from, int to) {
+        Set<String> names = new HashSet<>();
+        for (int i = from; i < to; i++)
+            names.add(name(i));
+        return names;
+    }
+
+    private static Graph<String> randomGraph(int size, int edges, Random random) throws Exception {
+        Graph<String> graph = graph(size);
+        for (int i = 0; i < edges; i++)
+            graph.addNodeAsParentOf(name(random.nextInt(size)), name(random.nextInt(size)));
+        return graph;
+    }
+
+    private static void compareWithAncestorQueries(int size, int graphs, Random random) throws Exception {
+        for (int g = 0; g < graphs; g++) {
+            Graph<String> graph = randomGraph(size, size + random.nextInt(size), random);
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < size; i++)
+                if (graph.isSecondNodeAncestorOf(name(i), name(i)))
+                    expected.add(name(i));
+            if (!graph.getNodesOnCycles().equals(expected)) {
+                failures += 1;
+                System.out.println("random graph " + g + " differs from isSecondNodeAncestorOf");
+            }
+            List<String> order = graph.getTopologicalOrder();
+            if ((order == null) != !expected.isEmpty() || (order != null && !isTopological(graph, order))) {
+                failures += 1;
+                System.out.println("random graph " + g + " has a wrong topological order");
+            }
+            graph.freeze();
+            if (!graph.getNodesOnCycles().equals(expected)) {
+                failures += 1;
+                System.out.println("frozen random graph " + g + " differs from isSecondNodeAncestorOf");
+            }
+        }
+        System.out.println(graphs + " random graphs of " + size + " structs compared with isSecondNodeAncestorOf");
+    }
+
+    private static boolean isTopological(Graph<String> graph, List<String> order) throws GraphDoesNotContainNodeException {
+        HashSet<String> seen = new HashSet<>();
+        for (String node : order) {
+            for (String parent : graph.getParentsOfNode(node))
+                if (seen.contains(parent))
+                    return false;
+            seen.add(node);
+        }
+        return true;
+    }
+
+    //struct Si has a member of struct S(i+1); the last cycleLength structs form a cycle
+    private static Program structChain(int size, int cycleLength) {
+        Program program = new Program();
+        for (int i = 0; i < size; i++) {
+            int member = i + 1 < size ? i + 1 : size - cycleLength;
+            VarDecStmt members = new VarDecStmt();
+            members.addVar(new VariableDeclaration(new Identifier("m"), new StructType(new Identifier(name(member)))));
+            BlockStmt body = new BlockStmt();
+            body.addStatement(members);
+            StructDeclaration struct = new StructDeclaration();
+            struct.setStructName(new Identifier(name(i)));
+            struct.setBody(body);
+            struct.setLine(i + 1);
+            program.addStruct(struct);
+        }
+        return program;
+    }
+
+    private static void checkNameAnalyser(int size, int cycleLength) {
+        Program program = structChain(size, cycleLength);
+        long start = System.nanoTime();
+        new NameAnalyser(new CompilationContext()).declareGlobals(program);
+        long elapsed = System.nanoTime() - start;
+        Set<String> reported = new HashSet<>();
+        for (StructDeclaration struct : program.getStructs())
+            for (CompileError error : struct.flushErrors())
+                if (error instanceof CyclicDependency)
+                    reported.add(struct.getStructName().getName());
+        boolean ok = reported.equals(range(size - cycleLength, size));
+        if (!ok)
+            failures += 1;
+        System.out.printf(Locale.ROOT, "declareGlobals, %d structs   %8d cyclic    %10.3f ms %s%n",
+                size, reported.size(), elapsed / 1e6, ok ? "ok" : "WRONG, expected " + cycleLength);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        Random random = new Random(seed);
+
+        Graph<String> chain = graph(size);
+        for (int i = 0; i + 1 < size; i++)
+            chain.addNodeAsParentOf(name(i), name(i + 1));
+        check("chain", chain, new HashSet<>());
+        List<String> chainOrder = chain.getTopologicalOrder();
+        if (chainOrder == null || chainOrder.size() != size || !isTopological(chain, chainOrder)) {
+            failures += 1;
+            System.out.println("wrong topological order of the chain");
+        }
+        chain.freeze();
+        check("chain, frozen", chain, new HashSet<>());
+
+        Graph<String> ring = graph(size);
+        for (int i = 0; i < size; i++)
+            ring.addNodeAsParentOf(name(i), name((i + 1) % size));
+        check("ring", ring, range(0, size));
+        if (ring.getTopologicalOrder() != null) {
+            failures += 1;
+            System.out.println("the ring has a topological order");
+        }
+
+        Graph<String> chainIntoCycle = graph(size);
+        for (int i = 0; i + 1 < size; i++)
+            chainIntoCycle.addNodeAsParentOf(name(i), name(i + 1));
+        chainIntoCycle.addNodeAsParentOf(name(size - 1), name(size - 10));
+        chainIntoCycle.addNodeAsParentOf(name(0), name(0));
+        Set<String> expected = range(size - 10, size);
+        expected.add(name(0));
+        check("chain into cycle, self edge", chainIntoCycle, expected);
+
+        //an edge to a node that is not in the graph is ignored, as by isSecondNodeAncestorOf
+        Graph<String> dangling = graph(2);
+        dangling.addNodeAsParentOf(name(0), "undeclared");
+        check("edge to unknown node", dangling, new HashSet<>());
+        try {
+            dangling.addNodeAsParentOf("undeclared", name(0));
+            failures += 1;
+        } catch (GraphDoesNotContainNodeException expectedException) {
+        }
+
+        Graph<String> sparse = randomGraph(size, size, random);
+        long start = System.nanoTime();
+        int cyclic = sparse.getNodesOnCycles().size();
+        System.out.printf(Locale.ROOT, "%-28s %8d on cycles %10.3f ms%n", "random, " + size + " edges",
+                cyclic, (System.nanoTime() - start) / 1e6);
+
+        compareWithAncestorQueries(300, 50, random);
+        checkNameAnalyser(size, 10);
+
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("all checks passed");
+    }
+}
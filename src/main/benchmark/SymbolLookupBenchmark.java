@@ -0,0 +1,169 @@
+package main.benchmark;
+
+import main.CmmCompiler;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.expression.Identifier;
+import main.symbolTable.Namespace;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemAlreadyExistsException;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.FunctionSymbolTableItem;
+import main.symbolTable.items.VariableSymbolTableItem;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.util.Locale;
+
+//Shows what signalling a missing symbol costs. Every variable reference in an expression is
+//first looked up as a function and misses, so identifier-heavy programs miss constantly.
+//The first part looks names up in a scope chain with findItem, with getItem (stackless
+//exception) and with a miss that captures a stack trace like the exceptions used to.
+//The second part resolves global names in a frozen and in a mutable root table, then
+//from several threads at once in the frozen one, checking every lookup.
+//The third part compiles an identifier-heavy generated program.
+//usage: SymbolLookupBenchmark [lookups] [compilations] [threads]
+public class SymbolLookupBenchmark {
+    private static final int DEPTH = 6;
+    private static final int NAMES_PER_SCOPE = 8;
+
+    private interface Lookup {
+        boolean find(SymbolTable table, Namespace namespace, int nameId);
+    }
+
+    private static SymbolTable scopeChain(Identifier[] names) throws ItemAlreadyExistsException {
+        SymbolTable table = null;
+        for (int depth = 0; depth < DEPTH; depth++) {
+            table = new SymbolTable(table);
+            for (int i = 0; i < NAMES_PER_SCOPE; i++)
+                table.put(new VariableSymbolTableItem(names[depth * NAMES_PER_SCOPE + i]));
+        }
+        return table;
+    }
+
+    //half of the lookups hit, in any scope of the chain, and half miss
+    private static double nanosPerLookup(Lookup lookup, SymbolTable table, Identifier[] names, int lookups) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            Namespace namespace = (i & 1) == 0 ? Namespace.VARIABLE : Namespace.FUNCTION;
+            if (lookup.find(table, namespace, names[i % names.length].getNameId()))
+                found += 1;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found == 0)
+            throw new IllegalStateException();
+        return (double) elapsed / lookups;
+    }
+
+    private static final int GLOBALS = 10000;
+
+    private static SymbolTable rootTable(Identifier[] globals) throws ItemAlreadyExistsException {
+        SymbolTable root = new SymbolTable();
+        for (Identifier global : globals) {
+            FunctionDeclaration function = new FunctionDeclaration();
+            function.setFunctionName(global);
+            root.put(new FunctionSymbolTableItem(function));
+        }
+        return root;
+    }
+
+    //every other lookup misses, like a variable looked up as a function first
+    private static long resolveGlobals(SymbolTable root, Identifier[] globals, int lookups) {
+        long found = 0;
+        for (int i = 0; i < lookups; i++) {
+            Namespace namespace = (i & 1) == 0 ? Namespace.FUNCTION : Namespace.STRUCT;
+            if (root.findItem(namespace, globals[i % globals.length].getNameId()) != null)
+                found += 1;
+        }
+        return found;
+    }
+
+    private static void compareRootTables(int lookups, int threads) throws Exception {
+        Identifier[] globals = new Identifier[GLOBALS];
+        for (int i = 0; i < globals.length; i++)
+            globals[i] = new Identifier("global" + i);
+        SymbolTable mutableRoot = rootTable(globals);
+        SymbolTable frozenRoot = rootTable(globals);
+        frozenRoot.freeze();
+        long expected = (lookups + 1) / 2;
+
+        for (int round = 0; round < 2; round++) {
+            for (SymbolTable root : new SymbolTable[]{mutableRoot, frozenRoot}) {
+                long start = System.nanoTime();
+                if (resolveGlobals(root, globals, lookups) != expected)
+                    throw new IllegalStateException("wrong lookup result");
+                double nanos = (double) (System.nanoTime() - start) / lookups;
+                if (round == 1)
+                    System.out.printf(Locale.ROOT, "%-12s %8.1f ns/lookup%n", root.isFrozen() ? "frozen root" : "mutable root", nanos);
+            }
+        }
+
+        Thread[] workers = new Thread[threads];
+        long[] found = new long[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> found[worker] = resolveGlobals(frozenRoot, globals, lookups));
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+        long elapsed = System.nanoTime() - start;
+        for (long count : found)
+            if (count != expected)
+                throw new IllegalStateException("wrong lookup result in a worker thread");
+        System.out.printf(Locale.ROOT, "%d threads on the frozen root: %.1f million lookups/s, all correct%n",
+                threads, (double) lookups * threads / elapsed * 1e3);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int compilations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        Identifier[] names = new Identifier[DEPTH * NAMES_PER_SCOPE];
+        for (int i = 0; i < names.length; i++)
+            names[i] = new Identifier("name" + i);
+        SymbolTable table = scopeChain(names);
+
+        Lookup findItem = (scope, namespace, nameId) -> scope.findItem(namespace, nameId) != null;
+        Lookup getItem = (scope, namespace, nameId) -> {
+            try {
+                scope.getItem(namespace, nameId);
+                return true;
+            } catch (ItemNotFoundException e) {
+                return false;
+            }
+        };
+        Lookup getItemWithStackTrace = (scope, namespace, nameId) -> {
+            try {
+                if (scope.findItem(namespace, nameId) == null)
+                    throw new Exception();
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        };
+
+        String[] lookupNames = {"findItem", "getItem", "stack trace"};
+        Lookup[] lookupKinds = {findItem, getItem, getItemWithStackTrace};
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < lookupKinds.length; i++) {
+                double nanos = nanosPerLookup(lookupKinds[i], table, names, lookups);
+                if (round == 1)
+                    System.out.printf(Locale.ROOT, "%-12s %8.1f ns/lookup%n", lookupNames[i], nanos);
+            }
+        }
+
+        compareRootTables(lookups, threads);
+
+        String source = new ProgramGenerator(1).setNumberOfStructs(10).setNumberOfFunctions(100)
+                .setStatementsPerFunction(20).setExpressionDepth(6).generate();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < compilations; i++) {
+            long start = System.nanoTime();
+            new CmmCompiler(null).compile(CharStreams.fromString(source));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf(Locale.ROOT, "identifier-heavy program: %.3f ms per compilation (best of %d)%n", best / 1e6, compilations);
+    }
+}
@@ -4,7 +4,9 @@ public class CompileError extends Exception {
     private int line;
     protected String message;
 
+    //errors are collected on the AST rather than thrown, so no stack trace is captured
     public CompileError(int line, String message) {
+        super(null, null, false, false);
         this.line = line;
         this.message = message;
     }
@@ -0,0 +1,283 @@
+package main.daemon;
+
+import main.CmmCompiler;
+import main.CompilationResult;
+import main.IncrementalCompiler;
+import main.ParserCache;
+import main.ast.types.TypeFactory;
+import main.symbolTable.SymbolNames;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Long-lived compiler listening on a localhost port, so that the lexer, parser and
+//visitors stay loaded and JIT-compiled between requests.
+//
+//Protocol (one request per line, any number of requests per connection):
+//  FILE <path>                  compile a file readable by the daemon; later requests for the
+//                               same path only re-check the declarations that changed
+//  SOURCE <length> <name>       followed by exactly <length> characters of source text,
+//                               at most MAX_SOURCE_LENGTH
+//  PING                         answered with PONG
+//  SHUTDOWN                     stops the daemon
+//Compile requests are answered with "PASS|FAIL <elapsed ms> <n>" followed by n diagnostic lines.
+//A SOURCE request with an invalid length is answered with an ERROR line, and the connection is closed.
+//Connections are served by a fixed number of threads; further connections wait for a free one.
+public class CompileDaemon {
+    public static final String USAGE = "Usage: Cmm --daemon [--port <port>] [--threads <n>] | Cmm --client [--port <port>] <files>...";
+    public static final int DEFAULT_PORT = 5077;
+    public static final int MAX_SOURCE_LENGTH = 16 * 1024 * 1024;
+    //each keeps the AST and symbol tables of its file's last version
+    public static final int MAX_INCREMENTAL_COMPILERS = 64;
+    public static final int MAX_SYMBOL_NAMES = 1000000;
+    public static final int MAX_INTERNED_TYPES = 1000000;
+    public static final int MAX_DFA_STATES = 200000;
+    public static final int MAX_CONTEXT_CACHE_SIZE = 1000000;
+    private static final int WARM_UP_COMPILATIONS = 20;
+
+    private final int port;
+    private final ExecutorService workers;
+    //the least recently compiled files are dropped first, see MAX_INCREMENTAL_COMPILERS
+    private final LinkedHashMap<String, IncrementalCompiler> incrementalCompilers =
+            new LinkedHashMap<String, IncrementalCompiler>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IncrementalCompiler> eldest) {
+                    return size() > MAX_INCREMENTAL_COMPILERS;
+                }
+            };
+    //compile requests hold the read lock; interned names and types are only dropped under the write lock
+    private final ReentrantReadWriteLock compilations = new ReentrantReadWriteLock();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public CompileDaemon() {
+        this(DEFAULT_PORT);
+    }
+
+    public CompileDaemon(int port) {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CompileDaemon(int port, int numberOfThreads) {
+        this.port = port;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, numberOfThreads));
+    }
+
+    public static CompilationResult compile(CharStream textStream) {
+        long start = System.nanoTime();
+        CompilationResult result;
+        try {
+            result = new CmmCompiler(null).compile(textStream);
+        } catch (RuntimeException e) {
+            result = CompilationResult.failed(textStream.getSourceName(), e);
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    private CompilationResult compileSource(CharStream textStream) {
+        compilations.readLock().lock();
+        try {
+            return compile(textStream);
+        } finally {
+            compilations.readLock().unlock();
+        }
+    }
+
+    private CompilationResult compileFile(String fileName) throws IOException {
+        compilations.readLock().lock();
+        try {
+            return compileIncrementally(fileName);
+        } finally {
+            compilations.readLock().unlock();
+        }
+    }
+
+    private CompilationResult compileIncrementally(String fileName) throws IOException {
+        IncrementalCompiler compiler;
+        synchronized (incrementalCompilers) {
+            compiler = incrementalCompilers.computeIfAbsent(fileName, k -> new IncrementalCompiler(null));
+        }
+        //read onto the heap rather than mapped: editors rewrite files in place, and reading
+        //a mapping of a file truncated meanwhile fails with InternalError or SIGBUS
+        CharStream textStream = CharStreams.fromFileName(fileName);
+        long start = System.nanoTime();
+        CompilationResult result;
+        synchronized (compiler) {
+            try {
+                result = compiler.compile(textStream);
+            } catch (RuntimeException e) {
+                result = CompilationResult.failed(fileName, e);
+                compiler.clear();
+            }
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    //Bounds the caches shared by all compilations. Interned names and types are held by ASTs
+    //and symbol tables, so they are only dropped while no compilation runs, together with the
+    //incremental compilers that keep both.
+    private void trim() {
+        ParserCache.shared().trim(MAX_DFA_STATES, MAX_CONTEXT_CACHE_SIZE);
+        if (SymbolNames.size() <= MAX_SYMBOL_NAMES && TypeFactory.size() <= MAX_INTERNED_TYPES)
+            return;
+        if (!compilations.writeLock().tryLock())
+            return;
+        try {
+            synchronized (incrementalCompilers) {
+                incrementalCompilers.clear();
+            }
+            SymbolNames.clear();
+            TypeFactory.clear();
+        } finally {
+            compilations.writeLock().unlock();
+        }
+    }
+
+    public static ArrayList<String> diagnosticsOf(CompilationResult result) {
+        ArrayList<String> diagnostics = new ArrayList<>();
+        if (result.getNumberOfSyntaxErrors() > 0)
+            diagnostics.add(result.getNumberOfSyntaxErrors() + " syntax errors");
+        diagnostics.addAll(result.getErrors());
+        if (result.getInternalError() != null)
+            diagnostics.add("Internal error: " + result.getInternalError());
+        return diagnostics;
+    }
+
+    //the parser DFA and the rest of the pipeline are warmed up before accepting
+    //connections, so the first request is already fast
+    public void start() throws IOException {
+        ParserCache.shared().warmUp();
+        for (int i = 0; i < WARM_UP_COMPILATIONS; i++) {
+            //the corpus has errors, but a compilation that stops early warms up nothing after it
+            CompilationResult result = compile(CharStreams.fromString(ParserCache.getWarmUpCorpus()));
+            if (result.getInternalError() != null)
+                throw new IllegalStateException("Warm-up compilation failed", result.getInternalError());
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        running = true;
+    }
+
+    public int getPort() {
+        return serverSocket == null ? port : serverSocket.getLocalPort();
+    }
+
+    //blocks until a SHUTDOWN request is received
+    public void serve() throws IOException {
+        if (serverSocket == null)
+            start();
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                workers.submit(() -> handle(socket));
+            } catch (SocketException e) {
+                if (running)
+                    throw e;
+            }
+        }
+        workers.shutdown();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)))) {
+            String request;
+            while ((request = in.readLine()) != null) {
+                if (request.equals("PING")) {
+                    out.println("PONG");
+                }
+                else if (request.equals("SHUTDOWN")) {
+                    out.println("BYE");
+                    out.flush();
+                    stop();
+                    return;
+                }
+                else if (request.startsWith("FILE ")) {
+                    String fileName = request.substring(5);
+                    try {
+                        respond(out, compileFile(fileName));
+                    } catch (IOException e) {
+                        respond(out, CompilationResult.failed(fileName, e));
+                    }
+                    trim();
+                }
+                else if (request.startsWith("SOURCE ")) {
+                    String[] parts = request.split(" ", 3);
+                    int length = parseSourceLength(parts[1]);
+                    if (length < 0) {
+                        out.println("ERROR source length must be between 0 and " + MAX_SOURCE_LENGTH);
+                        out.flush();
+                        return;
+                    }
+                    char[] text = new char[length];
+                    int read = 0;
+                    while (read < text.length) {
+                        int n = in.read(text, read, text.length - read);
+                        if (n < 0)
+                            return;
+                        read += n;
+                    }
+                    String name = parts.length > 2 ? parts[2] : CharStream.UNKNOWN_SOURCE_NAME;
+                    respond(out, compileSource(CharStreams.fromString(new String(text), name)));
+                    trim();
+                }
+                else {
+                    out.println("ERROR unknown request");
+                }
+                out.flush();
+            }
+        } catch (IOException | RuntimeException ignored) {
+            //a broken connection only affects its own client
+        }
+    }
+
+    //-1 if the port is not a number or is out of range; 0 lets the daemon pick a free port
+    public static int parsePort(String port) {
+        try {
+            int value = Integer.parseInt(port);
+            return value >= 0 && value <= 65535 ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    //-1 if the length is not a number or is out of range
+    private static int parseSourceLength(String length) {
+        try {
+            int value = Integer.parseInt(length);
+            return value <= MAX_SOURCE_LENGTH ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void respond(PrintWriter out, CompilationResult result) {
+        ArrayList<String> diagnostics = diagnosticsOf(result);
+        out.printf(Locale.ROOT, "%s %.3f %d%n", result.isSuccessful() ? "PASS" : "FAIL", result.getElapsedNanos() / 1e6, diagnostics.size());
+        for (String diagnostic : diagnostics)
+            out.println(diagnostic);
+    }
+}
@@ -0,0 +1,69 @@
+package main.daemon;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+//Thin client forwarding compile requests to a running CompileDaemon.
+public class DaemonClient implements Closeable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    public DaemonClient() throws IOException {
+        this(CompileDaemon.DEFAULT_PORT);
+    }
+
+    public DaemonClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+    }
+
+    //prints the diagnostics to report and returns true if the file compiled successfully
+    public boolean compileFile(String fileName, PrintStream report) throws IOException {
+        out.println("FILE " + Paths.get(fileName).toAbsolutePath());
+        out.flush();
+        return readReply(report);
+    }
+
+    public boolean compileSource(String name, String text, PrintStream report) throws IOException {
+        out.println("SOURCE " + text.length() + " " + name);
+        out.print(text);
+        out.flush();
+        return readReply(report);
+    }
+
+    public boolean ping() throws IOException {
+        out.println("PING");
+        out.flush();
+        return "PONG".equals(in.readLine());
+    }
+
+    public void shutdownDaemon() throws IOException {
+        out.println("SHUTDOWN");
+        out.flush();
+        in.readLine();
+    }
+
+    private boolean readReply(PrintStream report) throws IOException {
+        String header = in.readLine();
+        if (header == null || header.startsWith("ERROR"))
+            throw new IOException("Unexpected reply from compile daemon: " + header);
+        String[] parts = header.split(" ");
+        int numberOfLines = Integer.parseInt(parts[2]);
+        for (int i = 0; i < numberOfLines; i++) {
+            String line = in.readLine();
+            if (report != null)
+                report.println(line);
+        }
+        return parts[0].equals("PASS");
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
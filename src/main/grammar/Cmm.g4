@@ -214,13 +214,16 @@ ifStatement returns[ConditionalStmt ifStatementRet]:
     cond = IF exp = expression
     {$ifStatementRet = new ConditionalStmt($exp.exprRet);
      $ifStatementRet.setLine($cond.getLine());}
-    (body1 = loopCondBody
-    {$ifStatementRet.setThenBody($body1.stmtRet);}
-    | body2 = body
-    {$ifStatementRet.setThenBody($body2.bodyRet);}
-    elsest = elseStatement
-    {$ifStatementRet.setElseBody($elsest.stmt);}
-    );
+    (b = blockStatement
+    {$ifStatementRet.setThenBody($b.blockStatementRet);}
+    (elsest1 = elseStatement
+    {$ifStatementRet.setElseBody($elsest1.stmt);}
+    )?
+    | NEWLINE+ s = singleStatement
+    {$ifStatementRet.setThenBody($s.singleStatementRet);}
+    ((SEMICOLON)? elsest2 = elseStatement
+    {$ifStatementRet.setElseBody($elsest2.stmt);}
+    )?);
 
 
 elseStatement returns [Statement stmt]:
@@ -294,7 +297,7 @@ expression returns[Expression exprRet]:
     expl = orExpression {$exprRet = $expl.orExprRet;}
     (op = ASSIGN expr = expression {
         BinaryOperator opr = BinaryOperator.assign;
-        $exprRet = new BinaryExpression($exprRet, $expr.exprRet, opr);
+        $exprRet = new BinaryExpression($expl.orExprRet, $expr.exprRet, opr);
         $exprRet.setLine($op.getLine());
     })?
     ;
@@ -304,7 +307,7 @@ orExpression returns[Expression orExprRet]:
     expl = andExpression {$orExprRet = $expl.andExprRet;}
     (op = OR expr = andExpression{
         BinaryOperator opr = BinaryOperator.or;
-        $orExprRet = new BinaryExpression($orExprRet, $expr.andExprRet, opr);
+        $orExprRet = new BinaryExpression($expl.andExprRet, $expr.andExprRet, opr);
         $orExprRet.setLine($op.getLine());
     })*
     ;
@@ -481,7 +484,7 @@ type returns[Type typeRet]:
 
 fptrType returns[FptrType fptrTypeRet]:
     { ArrayList<Type> args = new ArrayList<>(); }
-    FPTR LESS_THAN (VOID
+    FPTR LESS_THAN (VOID { args.add(new VoidType()); }
     | (t1 = type { args.add($t1.typeRet); } (COMMA t2 = type { args.add($t2.typeRet); })* ))
 
     ARROW (t3 = type {$fptrTypeRet = new FptrType(args, $t3.typeRet);}
@@ -0,0 +1,45 @@
+package main.symbolTable;
+
+import main.symbolTable.items.SymbolTableItem;
+
+//What a name refers to, as resolved by NameAnalyser: the item, how many scopes up from
+//the use it was declared (GLOBAL for functions and structs in the root table), and its
+//slot, the order in which it was declared in that scope.
+//A struct member access also records the struct the member was found in as the owner.
+public class Binding {
+    public static final int GLOBAL = -1;
+    //a name that was resolved and found to be undeclared
+    public static final Binding UNDECLARED = new Binding(null, GLOBAL, -1, null);
+
+    private final SymbolTableItem item;
+    private final int depth;
+    private final int slot;
+    private final SymbolTableItem owner;
+
+    public Binding(SymbolTableItem item, int depth, int slot, SymbolTableItem owner) {
+        this.item = item;
+        this.depth = depth;
+        this.slot = slot;
+        this.owner = owner;
+    }
+
+    public SymbolTableItem getItem() {
+        return item;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public SymbolTableItem getOwner() {
+        return owner;
+    }
+
+    public boolean isDeclared() {
+        return item != null;
+    }
+}
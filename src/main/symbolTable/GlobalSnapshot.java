@@ -0,0 +1,214 @@
+package main.symbolTable;
+
+import main.CompilationContext;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.Identifier;
+import main.ast.types.*;
+import main.ast.types.primitives.BoolType;
+import main.ast.types.primitives.IntType;
+import main.ast.types.primitives.VoidType;
+import main.symbolTable.exceptions.ItemAlreadyExistsException;
+import main.symbolTable.items.FunctionSymbolTableItem;
+import main.symbolTable.items.StructSymbolTableItem;
+import main.symbolTable.items.VariableSymbolTableItem;
+
+import java.io.*;
+import java.util.ArrayList;
+
+//Binary snapshot of what NameAnalyser.declareGlobals builds: the root table with every
+//struct and function, each struct's members and properties (with the arguments of their
+//setters) and every function's signature. Restoring it on a program whose global
+//declarations are unchanged stands in for declareGlobals, so a warm build only analyses
+//function bodies, see IncrementalCompiler.
+//A snapshot is only taken of globals without name errors: then no declaration was renamed,
+//there is no cycle, and nothing depends on the line numbers of the declarations.
+//
+//Format, all through DataOutputStream:
+//  int MAGIC, int VERSION, UTF declaration hash,
+//  int structs, per struct: UTF name, int members, per member:
+//      UTF name, type, boolean property, if property: int arguments, per argument: UTF name, type
+//  int functions, per function: UTF name, int arguments, per argument: type, then the return type
+//A type is a tag byte, followed for a list by its element type, for an fptr by its number of
+//arguments, their types and its return type, and for a struct by its UTF name.
+public final class GlobalSnapshot {
+    private static final int MAGIC = 0x434D4D47;
+    private static final int VERSION = 1;
+
+    private static final byte INT = 0;
+    private static final byte BOOL = 1;
+    private static final byte VOID = 2;
+    private static final byte NO_TYPE = 3;
+    private static final byte LIST = 4;
+    private static final byte FPTR = 5;
+    private static final byte STRUCT = 6;
+
+    private GlobalSnapshot() {
+    }
+
+    //root is the table declareGlobals built for program, before type checking
+    public static byte[] write(SymbolTable root, Program program, String declarationHash) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(declarationHash);
+            out.writeInt(program.getStructs().size());
+            for (StructDeclaration structDec : program.getStructs()) {
+                StructSymbolTableItem struct = (StructSymbolTableItem) root.findItem(Namespace.STRUCT, structDec.getStructName().getNameId());
+                StructLayout layout = struct.getLayout();
+                out.writeUTF(struct.getName());
+                out.writeInt(layout.getNumberOfMembers());
+                for (int i = 0; i < layout.getNumberOfMembers(); i++) {
+                    VariableSymbolTableItem member = layout.getMember(i);
+                    out.writeUTF(member.getName());
+                    writeType(out, member.getType());
+                    out.writeBoolean(layout.isProperty(i));
+                    if (layout.isProperty(i)) {
+                        FunctionSymbolTableItem property = (FunctionSymbolTableItem) struct.getStructSymbolTable().findItem(Namespace.FUNCTION, member.getNameId());
+                        ArrayList<VariableDeclaration> args = property.getFunctionDeclaration().getArgs();
+                        out.writeInt(args.size());
+                        for (VariableDeclaration arg : args) {
+                            out.writeUTF(arg.getVarName().getName());
+                            writeType(out, arg.getVarType());
+                        }
+                    }
+                }
+            }
+            out.writeInt(program.getFunctions().size());
+            for (FunctionDeclaration funcDec : program.getFunctions()) {
+                FunctionSymbolTableItem function = (FunctionSymbolTableItem) root.findItem(Namespace.FUNCTION, funcDec.getFunctionName().getNameId());
+                out.writeUTF(function.getName());
+                out.writeInt(function.getArgTypes().size());
+                for (Type argType : function.getArgTypes())
+                    writeType(out, argType);
+                writeType(out, function.getReturnType());
+            }
+        } catch (IOException e) { //unreachable, the stream is in memory
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    //Rebuilds the root table of program from snapshot and makes it the root of context, as
+    //declareGlobals would. Returns false, leaving context untouched, if the snapshot is not
+    //one of these exact global declarations.
+    public static boolean restore(byte[] snapshot, String declarationHash, Program program, CompilationContext context) {
+        SymbolTable root;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(declarationHash))
+                return false;
+            root = new SymbolTable();
+            if (in.readInt() != program.getStructs().size())
+                return false;
+            for (StructDeclaration structDec : program.getStructs()) {
+                if (!in.readUTF().equals(structDec.getStructName().getName()))
+                    return false;
+                StructSymbolTableItem struct = new StructSymbolTableItem(structDec);
+                struct.setStructSymbolTable(readStructTable(in));
+                root.put(struct);
+                struct.setLayout(StructLayout.of(structDec, struct.getStructSymbolTable()));
+            }
+            if (in.readInt() != program.getFunctions().size())
+                return false;
+            for (FunctionDeclaration funcDec : program.getFunctions()) {
+                if (!in.readUTF().equals(funcDec.getFunctionName().getName()))
+                    return false;
+                FunctionSymbolTableItem function = new FunctionSymbolTableItem(funcDec);
+                int numberOfArgs = in.readInt();
+                ArrayList<Type> argTypes = new ArrayList<>(numberOfArgs);
+                for (int i = 0; i < numberOfArgs; i++)
+                    argTypes.add(readType(in));
+                function.setArgTypes(argTypes);
+                function.setReturnType(readType(in));
+                root.put(function);
+            }
+        } catch (IOException | ItemAlreadyExistsException e) { //a damaged snapshot
+            return false;
+        }
+        root.freeze();
+        context.setRoot(root);
+        context.push(root);
+        return true;
+    }
+
+    //the members are put in their declaration order, so they get the slots they had
+    private static SymbolTable readStructTable(DataInputStream in) throws IOException, ItemAlreadyExistsException {
+        SymbolTable structTable = new SymbolTable();
+        int numberOfMembers = in.readInt();
+        for (int i = 0; i < numberOfMembers; i++) {
+            Identifier name = new Identifier(in.readUTF());
+            Type type = readType(in);
+            VariableSymbolTableItem member = new VariableSymbolTableItem(name);
+            member.setType(type);
+            structTable.put(member);
+            if (!in.readBoolean())
+                continue;
+            //the property's getter and setter, with the scope of the setter's arguments
+            FunctionDeclaration funcDec = new FunctionDeclaration();
+            funcDec.setFunctionName(name);
+            funcDec.setReturnType(type);
+            SymbolTable propertyTable = new SymbolTable(structTable);
+            int numberOfArgs = in.readInt();
+            for (int j = 0; j < numberOfArgs; j++) {
+                VariableDeclaration arg = new VariableDeclaration(new Identifier(in.readUTF()), readType(in));
+                funcDec.addArg(arg);
+                VariableSymbolTableItem argItem = new VariableSymbolTableItem(arg.getVarName());
+                argItem.setType(arg.getVarType());
+                propertyTable.put(argItem);
+            }
+            FunctionSymbolTableItem property = new FunctionSymbolTableItem(funcDec);
+            property.setFunctionSymbolTable(propertyTable);
+            structTable.put(property);
+        }
+        return structTable;
+    }
+
+    private static void writeType(DataOutputStream out, Type type) throws IOException {
+        if (type instanceof IntType)
+            out.writeByte(INT);
+        else if (type instanceof BoolType)
+            out.writeByte(BOOL);
+        else if (type instanceof VoidType)
+            out.writeByte(VOID);
+        else if (type instanceof ListType) {
+            out.writeByte(LIST);
+            writeType(out, ((ListType) type).getType());
+        }
+        else if (type instanceof FptrType) {
+            FptrType fptrType = (FptrType) type;
+            out.writeByte(FPTR);
+            out.writeInt(fptrType.getArgsType().size());
+            for (Type argType : fptrType.getArgsType())
+                writeType(out, argType);
+            writeType(out, fptrType.getReturnType());
+        }
+        else if (type instanceof StructType) {
+            out.writeByte(STRUCT);
+            out.writeUTF(((StructType) type).getStructName().getName());
+        }
+        else
+            out.writeByte(NO_TYPE);
+    }
+
+    private static Type readType(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case INT: return TypeFactory.INT;
+            case BOOL: return TypeFactory.BOOL;
+            case VOID: return TypeFactory.VOID;
+            case NO_TYPE: return TypeFactory.NO_TYPE;
+            case LIST: return TypeFactory.listOf(readType(in));
+            case FPTR:
+                int numberOfArgs = in.readInt();
+                ArrayList<Type> argTypes = new ArrayList<>(numberOfArgs);
+                for (int i = 0; i < numberOfArgs; i++)
+                    argTypes.add(readType(in));
+                return TypeFactory.fptrOf(argTypes, readType(in));
+            case STRUCT: return TypeFactory.structOf(in.readUTF());
+            default: throw new IOException("unknown type tag " + tag);
+        }
+    }
+}
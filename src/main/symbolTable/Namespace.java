@@ -0,0 +1,9 @@
+package main.symbolTable;
+
+//Variables, functions and structs are looked up separately, so the same name
+//may be declared once in each of them.
+public enum Namespace {
+    VARIABLE,
+    FUNCTION,
+    STRUCT
+}
@@ -0,0 +1,109 @@
+package main.symbolTable;
+
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.statement.BlockStmt;
+import main.ast.nodes.statement.SetGetVarDeclaration;
+import main.ast.nodes.statement.Statement;
+import main.ast.nodes.statement.VarDecStmt;
+import main.ast.types.Type;
+import main.symbolTable.items.VariableSymbolTableItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+//The members of one struct, indexed densely in declaration order: index i is the member
+//whose item has slot i in the struct's symbol table. Built once by NameAnalyser after the
+//struct bodies are analysed, see StructSymbolTableItem.getLayout. Resolving a member is one
+//probe of a small open addressing array of name ids; a code generator can use the index
+//as the field offset. A member declared twice keeps its first declaration.
+public class StructLayout {
+    private static final int EMPTY = -1;
+
+    private final VariableSymbolTableItem[] members;
+    private final boolean[] properties;
+    //the index of the member in each slot of the probe array, or EMPTY
+    private final int[] indexes;
+
+    private StructLayout(VariableSymbolTableItem[] members, boolean[] properties) {
+        this.members = members;
+        this.properties = properties;
+        int capacity = 4;
+        while (capacity < members.length * 2)
+            capacity *= 2;
+        indexes = new int[capacity];
+        Arrays.fill(indexes, EMPTY);
+        int mask = capacity - 1;
+        for (int index = 0; index < members.length; index++) {
+            int slot = slotOf(members[index].getNameId(), mask);
+            while (indexes[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            indexes[slot] = index;
+        }
+    }
+
+    private static int slotOf(int nameId, int mask) {
+        int hash = nameId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    //structTable must already hold the members of structDec, as NameAnalyser puts them
+    public static StructLayout of(StructDeclaration structDec, SymbolTable structTable) {
+        ArrayList<VariableSymbolTableItem> members = new ArrayList<>();
+        ArrayList<Boolean> properties = new ArrayList<>();
+        Statement body = structDec.getBody();
+        List<Statement> statements = body instanceof BlockStmt
+                ? ((BlockStmt) body).getStatements() : Collections.singletonList(body);
+        for (Statement statement : statements) {
+            if (statement instanceof VarDecStmt) {
+                for (VariableDeclaration var : ((VarDecStmt) statement).getVars())
+                    add(members, properties, structTable, var, false);
+            }
+            else if (statement instanceof SetGetVarDeclaration)
+                add(members, properties, structTable, ((SetGetVarDeclaration) statement).getVarDec(), true);
+        }
+        boolean[] isProperty = new boolean[properties.size()];
+        for (int i = 0; i < isProperty.length; i++)
+            isProperty[i] = properties.get(i);
+        return new StructLayout(members.toArray(new VariableSymbolTableItem[0]), isProperty);
+    }
+
+    private static void add(ArrayList<VariableSymbolTableItem> members, ArrayList<Boolean> properties,
+                            SymbolTable structTable, VariableDeclaration var, boolean property) {
+        VariableSymbolTableItem item = (VariableSymbolTableItem) structTable.findItem(Namespace.VARIABLE, var.getVarName().getNameId());
+        //skips a repeated declaration, whose item is that of the first one, or a member that was not put
+        if (item == null || item.getSlot() != members.size())
+            return;
+        members.add(item);
+        properties.add(property);
+    }
+
+    public int getNumberOfMembers() {
+        return members.length;
+    }
+
+    //the index of the member named nameId, or -1 if the struct has none
+    public int indexOf(int nameId) {
+        int mask = indexes.length - 1;
+        for (int slot = slotOf(nameId, mask); indexes[slot] != EMPTY; slot = (slot + 1) & mask)
+            if (members[indexes[slot]].getNameId() == nameId)
+                return indexes[slot];
+        return -1;
+    }
+
+    public VariableSymbolTableItem getMember(int index) {
+        return members[index];
+    }
+
+    //the member's type as TypeChecker left it; NoType when its struct type is not declared
+    public Type getType(int index) {
+        return members[index].getType();
+    }
+
+    //whether the member is a property, read and written through its getter and setter
+    public boolean isProperty(int index) {
+        return properties[index];
+    }
+}
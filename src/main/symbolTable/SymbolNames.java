@@ -0,0 +1,33 @@
+package main.symbolTable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Interns names into small ints, so that symbol tables are keyed by int and a
+//lookup does not build or hash a key string. Ids are shared by all compilations.
+public final class SymbolNames {
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private SymbolNames() {
+    }
+
+    public static int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+        return ids.computeIfAbsent(name, k -> nextId.getAndIncrement());
+    }
+
+    public static int size() {
+        return nextId.get();
+    }
+
+    //Forgets every name, so that a long-running process does not keep each name it ever saw.
+    //Ids are cached on Identifiers and symbol table items, so this may only be called while
+    //no compilation runs, and the ASTs and symbol tables built before must be dropped.
+    public static void clear() {
+        ids.clear();
+        nextId.set(0);
+    }
+}
@@ -3,39 +3,55 @@ package main.symbolTable;
 
 import main.symbolTable.exceptions.ItemAlreadyExistsException;
 import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.FunctionSymbolTableItem;
+import main.symbolTable.items.StructSymbolTableItem;
 import main.symbolTable.items.SymbolTableItem;
-import main.symbolTable.utils.Stack;
-
-
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import main.symbolTable.items.VariableSymbolTableItem;
+import main.symbolTable.utils.FrozenIntMap;
+import main.symbolTable.utils.IntMap;
 
 
 
+//The scope stack and the root table are owned by main.CompilationContext,
+//so that independent programs can be analysed concurrently.
+//Items are kept in one table per Namespace, keyed by the SymbolNames id of their name.
+//The enclosing table is fixed at construction, so it always existed before this one
+//and the pre chain can never form a cycle.
+//A table can be frozen once it is complete, e.g. the root table after NameAnalyser has
+//declared every struct and function; it is then read-only and safe to share between threads.
 public class SymbolTable {
 
-    //Start of static members
+    //the items of a frozen table; final fields, so another thread always sees them complete
+    private static final class FrozenItems {
+        final FrozenIntMap<SymbolTableItem> variables;
+        final FrozenIntMap<SymbolTableItem> functions;
+        final FrozenIntMap<SymbolTableItem> structs;
 
-    public static SymbolTable top;
-    public static SymbolTable root;
-    private static Stack<SymbolTable> stack = new Stack<>();
+        FrozenItems(IntMap<SymbolTableItem> variables, IntMap<SymbolTableItem> functions, IntMap<SymbolTableItem> structs) {
+            this.variables = freeze(variables);
+            this.functions = freeze(functions);
+            this.structs = freeze(structs);
+        }
 
-    public static void push(SymbolTable symbolTable) {
-        if (top != null)
-            stack.push(top);
-        top = symbolTable;
-    }
+        private static FrozenIntMap<SymbolTableItem> freeze(IntMap<SymbolTableItem> items) {
+            return items == null ? null : items.freeze();
+        }
 
-    public static void pop() {
-        top = stack.pop();
+        FrozenIntMap<SymbolTableItem> of(Namespace namespace) {
+            switch (namespace) {
+                case VARIABLE: return variables;
+                case FUNCTION: return functions;
+                default: return structs;
+            }
+        }
     }
 
-    //End of static members
-
-    public SymbolTable pre;
-    private Map<String, SymbolTableItem> items;
+    private final SymbolTable pre;
+    private IntMap<SymbolTableItem> variables;
+    private IntMap<SymbolTableItem> functions;
+    private IntMap<SymbolTableItem> structs;
+    //null until freeze; the maps above are dropped then
+    private FrozenItems frozenItems;
 
     public SymbolTable() {
         this(null);
@@ -43,25 +59,109 @@ public class SymbolTable {
 
     public SymbolTable(SymbolTable pre) {
         this.pre = pre;
-        this.items = new HashMap<>();
+    }
+
+    public SymbolTable getPre() {
+        return pre;
+    }
+
+    //null if nothing was put in this namespace yet
+    private IntMap<SymbolTableItem> itemsOf(Namespace namespace) {
+        switch (namespace) {
+            case VARIABLE: return variables;
+            case FUNCTION: return functions;
+            default: return structs;
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozenItems != null;
+    }
+
+    //Makes this table read-only: put throws from now on, lookups are lock-free.
+    //The enclosing tables are not frozen.
+    public void freeze() {
+        if (isFrozen())
+            return;
+        frozenItems = new FrozenItems(variables, functions, structs);
+        variables = null;
+        functions = null;
+        structs = null;
     }
 
     public void put(SymbolTableItem item) throws ItemAlreadyExistsException {
-        if (items.containsKey(item.getKey()))
+        if (isFrozen())
+            throw new IllegalStateException("symbol table is frozen");
+        IntMap<SymbolTableItem> items = itemsOf(item.getNamespace());
+        if (items == null) {
+            items = new IntMap<>();
+            switch (item.getNamespace()) {
+                case VARIABLE: variables = items; break;
+                case FUNCTION: functions = items; break;
+                default: structs = items;
+            }
+        }
+        if (items.containsKey(item.getNameId()))
             throw new ItemAlreadyExistsException();
-        items.put(item.getKey(), item);
+        item.setSlot(items.size());
+        items.put(item.getNameId(), item);
     }
 
-    public SymbolTableItem getItem(String key) throws ItemNotFoundException {
-        Set<SymbolTable> visitedSymbolTables = new HashSet<>();
-        SymbolTable currentSymbolTable = this;
-        while((currentSymbolTable != null) && (!visitedSymbolTables.contains(currentSymbolTable))) {
-            visitedSymbolTables.add( currentSymbolTable );
-            SymbolTableItem symbolTableItem = currentSymbolTable.items.get(key);
-            if( symbolTableItem != null )
-                return symbolTableItem;
-            currentSymbolTable = currentSymbolTable.pre;
+    private SymbolTableItem getLocalItem(Namespace namespace, int nameId) {
+        if (frozenItems != null) {
+            FrozenIntMap<SymbolTableItem> items = frozenItems.of(namespace);
+            return items == null ? null : items.get(nameId);
+        }
+        IntMap<SymbolTableItem> items = itemsOf(namespace);
+        return items == null ? null : items.get(nameId);
+    }
+
+    //Searches this table, then the enclosing ones, and returns null if the name is not declared.
+    //Allocates nothing; the cost only depends on the depth of the scope.
+    public SymbolTableItem findItem(Namespace namespace, int nameId) {
+        for (SymbolTable table = this; table != null; table = table.pre) {
+            SymbolTableItem item = table.getLocalItem(namespace, nameId);
+            if (item != null)
+                return item;
         }
+        return null;
+    }
+
+    //same as findItem, but also records how many scopes up the item was found
+    public Binding findBinding(Namespace namespace, int nameId) {
+        int depth = 0;
+        for (SymbolTable table = this; table != null; table = table.pre, depth++) {
+            SymbolTableItem item = table.getLocalItem(namespace, nameId);
+            if (item != null)
+                return new Binding(item, depth, item.getSlot(), null);
+        }
+        return null;
+    }
+
+    public SymbolTableItem findItem(Namespace namespace, String name) {
+        return findItem(namespace, SymbolNames.idOf(name));
+    }
+
+    //same as findItem, but a miss throws; prefer findItem where a miss is expected
+    public SymbolTableItem getItem(Namespace namespace, int nameId) throws ItemNotFoundException {
+        SymbolTableItem item = findItem(namespace, nameId);
+        if (item == null)
+            throw new ItemNotFoundException();
+        return item;
+    }
+
+    public SymbolTableItem getItem(Namespace namespace, String name) throws ItemNotFoundException {
+        return getItem(namespace, SymbolNames.idOf(name));
+    }
+
+    //lookup by the key of an item, e.g. FunctionSymbolTableItem.START_KEY + name
+    public SymbolTableItem getItem(String key) throws ItemNotFoundException {
+        if (key.startsWith(FunctionSymbolTableItem.START_KEY))
+            return getItem(Namespace.FUNCTION, key.substring(FunctionSymbolTableItem.START_KEY.length()));
+        if (key.startsWith(StructSymbolTableItem.START_KEY))
+            return getItem(Namespace.STRUCT, key.substring(StructSymbolTableItem.START_KEY.length()));
+        if (key.startsWith(VariableSymbolTableItem.START_KEY))
+            return getItem(Namespace.VARIABLE, key.substring(VariableSymbolTableItem.START_KEY.length()));
         throw new ItemNotFoundException();
     }
 
@@ -1,4 +1,8 @@
 package main.symbolTable.exceptions;
 
+//Thrown as control flow by SymbolTable.put, so no stack trace is captured.
 public class ItemAlreadyExistsException extends Exception {
+    public ItemAlreadyExistsException() {
+        super(null, null, false, false);
+    }
 }
@@ -1,5 +1,9 @@
 package main.symbolTable.exceptions;
 
 
+//Thrown as control flow by lookups, so no stack trace is captured.
 public class ItemNotFoundException extends Exception {
+    public ItemNotFoundException() {
+        super(null, null, false, false);
+    }
 }
@@ -2,7 +2,10 @@ package main.symbolTable.items;
 
 
 import main.ast.nodes.declaration.*;
+import main.ast.types.FptrType;
 import main.ast.types.Type;
+import main.ast.types.TypeFactory;
+import main.symbolTable.Namespace;
 import main.symbolTable.SymbolTable;
 
 import java.util.ArrayList;
@@ -13,13 +16,17 @@ public class FunctionSymbolTableItem extends SymbolTableItem {
     private Type returnType;
     private ArrayList<Type> argTypes = new ArrayList<>();
     private SymbolTable FunctionSymbolTable;
+    //the type of a reference to this function; built whenever the return or argument types
+    //are set, so ParallelTypeChecker tasks only read it, and interned types are immutable
+    private volatile FptrType type;
 
     public FunctionSymbolTableItem(FunctionDeclaration FunctionDeclaration) {
         this.FunctionDeclaration = FunctionDeclaration;
-        this.returnType = FunctionDeclaration.getReturnType();
+        this.returnType = TypeFactory.intern(FunctionDeclaration.getReturnType());
         for(VariableDeclaration varDeclaration : FunctionDeclaration.getArgs()) {
-            this.argTypes.add(varDeclaration.getVarType());
+            this.argTypes.add(TypeFactory.intern(varDeclaration.getVarType()));
         }
+        this.type = TypeFactory.fptrOf(argTypes, returnType);
         this.name = FunctionDeclaration.getFunctionName().getName();
     }
 
@@ -37,6 +44,7 @@ public class FunctionSymbolTableItem extends SymbolTableItem {
 
     public void setReturnType(Type returnType) {
         this.returnType = returnType;
+        this.type = TypeFactory.fptrOf(argTypes, returnType);
     }
 
     public ArrayList<Type> getArgTypes() {
@@ -45,6 +53,11 @@ public class FunctionSymbolTableItem extends SymbolTableItem {
 
     public void setArgTypes(ArrayList<Type> argTypes) {
         this.argTypes = argTypes;
+        this.type = TypeFactory.fptrOf(argTypes, returnType);
+    }
+
+    public FptrType getType() {
+        return type;
     }
 
     public SymbolTable getFunctionSymbolTable() {
@@ -55,6 +68,11 @@ public class FunctionSymbolTableItem extends SymbolTableItem {
         this.FunctionSymbolTable = FunctionSymbolTable;
     }
 
+    @Override
+    public Namespace getNamespace() {
+        return Namespace.FUNCTION;
+    }
+
     @Override
     public String getKey() {
         return START_KEY + this.name;
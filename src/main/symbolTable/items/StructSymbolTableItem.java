@@ -10,6 +10,8 @@ public class StructSymbolTableItem extends SymbolTableItem {
     public static final String START_KEY = "Struct_";
     private SymbolTable StructSymbolTable;
     private StructDeclaration structDeclaration;
+    //null until NameAnalyser has analysed the struct body
+    private StructLayout layout;
 
     public StructSymbolTableItem(StructDeclaration structDeclaration) {
         this.structDeclaration = structDeclaration;
@@ -22,6 +24,14 @@ public class StructSymbolTableItem extends SymbolTableItem {
     public StructDeclaration getStructDeclaration() { return structDeclaration; }
     public void setStructDeclaration(StructDeclaration structDeclaration) { this.structDeclaration = structDeclaration; }
 
+    public StructLayout getLayout() { return layout; }
+    public void setLayout(StructLayout layout) { this.layout = layout; }
+
+    @Override
+    public Namespace getNamespace() {
+        return Namespace.STRUCT;
+    }
+
     @Override
     public String getKey() {
         return START_KEY + this.name;
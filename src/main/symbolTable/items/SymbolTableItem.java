@@ -1,11 +1,19 @@
 package main.symbolTable.items;
 
+import main.symbolTable.Namespace;
+import main.symbolTable.SymbolNames;
+
 public abstract class SymbolTableItem {
 
     protected String name;
+    private String internedName;
+    private int nameId;
+    private int slot = -1;
 
     public abstract String getKey();
 
+    public abstract Namespace getNamespace();
+
     public String getName() {
         return name;
     }
@@ -13,4 +21,22 @@ public abstract class SymbolTableItem {
     public void setName(String name) {
         this.name = name;
     }
+
+    //the position of this item among those of its namespace in the table it was put in
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    //the SymbolNames id of name, looked up again only when name changes
+    public int getNameId() {
+        if (internedName != name) {
+            nameId = SymbolNames.idOf(name);
+            internedName = name;
+        }
+        return nameId;
+    }
 }
@@ -2,6 +2,7 @@ package main.symbolTable.items;
 
 import main.ast.nodes.expression.Identifier;
 import main.ast.types.Type;
+import main.symbolTable.Namespace;
 
 public class VariableSymbolTableItem extends SymbolTableItem {
     public static String START_KEY = "Var_";
@@ -16,6 +17,11 @@ public class VariableSymbolTableItem extends SymbolTableItem {
     }
     public void setType(Type type) { this.type = type;}
 
+    @Override
+    public Namespace getNamespace() {
+        return Namespace.VARIABLE;
+    }
+
     @Override
     public String getKey() {
         return START_KEY + this.name;
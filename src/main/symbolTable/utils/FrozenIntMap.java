@@ -0,0 +1,35 @@
+package main.symbolTable.utils;
+
+//Read-only copy of an IntMap, made by IntMap.freeze. Its arrays are final and never
+//written after construction, so any number of threads can call get concurrently
+//without locks, and a map handed to another thread is always seen complete.
+public final class FrozenIntMap<V> {
+    private static final int EMPTY = -1;
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int size;
+
+    FrozenIntMap(int[] keys, Object[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = IntMap.slotOf(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return (V) values[slot];
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+        return size;
+    }
+}
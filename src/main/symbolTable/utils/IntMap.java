@@ -0,0 +1,85 @@
+package main.symbolTable.utils;
+
+import java.util.Arrays;
+
+//Open addressing map from non-negative int keys to values. Unlike HashMap<Integer, V>
+//it neither boxes keys nor allocates entries, so get never allocates.
+public class IntMap<V> {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    public IntMap() {
+        this(4);
+    }
+
+    public IntMap(int expectedSize) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2)
+            capacity *= 2;
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+    }
+
+    static int slotOf(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return (V) values[slot];
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    //values may not be null
+    public void put(int key, V value) {
+        if ((size + 1) * 2 > keys.length)
+            grow();
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        if (keys[slot] == EMPTY)
+            size += 1;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //a read-only copy that can be shared between threads, see FrozenIntMap
+    public FrozenIntMap<V> freeze() {
+        return new FrozenIntMap<>(keys.clone(), values.clone(), size);
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY)
+                continue;
+            int slot = slotOf(oldKeys[i], mask);
+            while (keys[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
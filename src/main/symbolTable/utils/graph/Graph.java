@@ -5,52 +5,90 @@ import main.symbolTable.utils.graph.exceptions.NodeAlreadyExistsException;
 
 import java.util.*;
 
+//Parentship graph over nodes of any type, stored as an IntGraph: every node gets a dense
+//id in the order it is first seen, and an edge leads from a node to each of its parents.
+//A parent does not have to be added as a node; it gets an id but no parents of its own.
 public class Graph<N> {
-    private Map<N, Set<N>> parentShipRelation = new HashMap<>();
+    private final Map<N, Integer> ids = new HashMap<>();
+    private final ArrayList<N> nodes = new ArrayList<>();
+    //the ids of the nodes added with addNode, as opposed to those only used as parents
+    private final BitSet addedNodes = new BitSet();
+    private final IntGraph parentShipRelation = new IntGraph();
+
+    private int idOf(N node) {
+        Integer id = ids.get(node);
+        if (id != null)
+            return id;
+        id = parentShipRelation.addNode();
+        ids.put(node, id);
+        nodes.add(node);
+        return id;
+    }
+
+    //-1 for a node that was not added
+    private int addedIdOf(N node) {
+        Integer id = ids.get(node);
+        return id != null && addedNodes.get(id) ? id : -1;
+    }
 
     public void addNode(N desired) throws NodeAlreadyExistsException {
-        if (parentShipRelation.containsKey(desired))
+        if (doesGraphContainNode(desired))
             throw new NodeAlreadyExistsException();
-        parentShipRelation.put(desired, new HashSet<>());
+        addedNodes.set(idOf(desired));
     }
 
     public boolean doesGraphContainNode(N desired) {
-        return parentShipRelation.containsKey(desired);
+        return addedIdOf(desired) != -1;
     }
 
     public void addNodeAsParentOf(N desired, N parentNode) throws GraphDoesNotContainNodeException {
-        if (!parentShipRelation.containsKey(desired))
+        int id = addedIdOf(desired);
+        if (id == -1)
             throw new GraphDoesNotContainNodeException();
-        parentShipRelation.get(desired).add(parentNode);
+        parentShipRelation.addEdge(id, idOf(parentNode));
     }
 
     public Collection<N> getParentsOfNode(N desired) throws GraphDoesNotContainNodeException {
-        if (!parentShipRelation.containsKey(desired))
+        int id = addedIdOf(desired);
+        if (id == -1)
             throw new GraphDoesNotContainNodeException();
-        return parentShipRelation.get(desired);
+        Set<N> parents = new LinkedHashSet<>();
+        for (int k = 0; k < parentShipRelation.getDegree(id); k++)
+            parents.add(nodes.get(parentShipRelation.getEdge(id, k)));
+        return parents;
     }
 
     public boolean isSecondNodeAncestorOf(N first , N second) {
-        Set<N> visitedNodes = new HashSet<>();
-        return _isSecondNodeAncestorOf(first,second, visitedNodes);
-    }
-
-    private boolean _isSecondNodeAncestorOf(N first, N second, Set<N> visitedNodes) {
-        try {
-            Collection<N> parents = getParentsOfNode(first);
-            for(N node : parents) {
-                if (node.equals(second)) {
-                    return true;
-                }
-                if (visitedNodes.contains(node))
-                    continue;
-                visitedNodes.add(node);
-                if (_isSecondNodeAncestorOf(node, second, visitedNodes))
-                    return true;
-            }
-        } catch(GraphDoesNotContainNodeException ignored) {
-        }
-        return false;
+        int firstId = addedIdOf(first);
+        Integer secondId = ids.get(second);
+        return firstId != -1 && secondId != null && parentShipRelation.isReachable(firstId, secondId);
     }
 
+    //Every node that is its own ancestor, that is every node on a cycle of parentship edges
+    //(a node that is its own parent included), see IntGraph.getNodesOnCycles.
+    public Set<N> getNodesOnCycles() {
+        BitSet onCycles = parentShipRelation.getNodesOnCycles();
+        Set<N> nodesOnCycles = new HashSet<>();
+        for (int id = onCycles.nextSetBit(0); id >= 0; id = onCycles.nextSetBit(id + 1))
+            nodesOnCycles.add(nodes.get(id));
+        return nodesOnCycles;
+    }
+
+    //Every node in an order where each node comes before its parents, or null if there
+    //is a cycle. Parents that were not added as nodes are left out.
+    public List<N> getTopologicalOrder() {
+        int[] order = parentShipRelation.getTopologicalOrder();
+        if (order == null)
+            return null;
+        ArrayList<N> orderedNodes = new ArrayList<>(order.length);
+        for (int id : order)
+            if (addedNodes.get(id))
+                orderedNodes.add(nodes.get(id));
+        return orderedNodes;
+    }
+
+    //Packs the edges into flat arrays; nodes and edges can no longer be added.
+    public void freeze() {
+        parentShipRelation.freeze();
+    }
 }
@@ -0,0 +1,217 @@
+package main.symbolTable.utils.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+//Directed graph over dense int nodes 0..n-1. Every node keeps its edges in a growable
+//int[]; freeze packs them into two flat arrays (compressed sparse rows) and makes the
+//graph read-only. Nothing is boxed, so a node costs a few ints instead of a map entry
+//and a HashSet. The same edge may be added twice; the queries are not affected.
+//Graph<N> maps its nodes to these ids, see Graph.
+public class IntGraph {
+    private int numberOfNodes = 0;
+    private int numberOfEdges = 0;
+
+    //before freeze: the edges of node i are edges[i][0 .. degrees[i] - 1]
+    private int[][] edges = new int[16][];
+    private int[] degrees = new int[16];
+
+    //after freeze: the edges of node i are targets[offsets[i] .. offsets[i + 1] - 1]
+    private int[] offsets;
+    private int[] targets;
+
+    public int addNode() {
+        if (isFrozen())
+            throw new IllegalStateException("graph is frozen");
+        if (numberOfNodes == degrees.length) {
+            edges = Arrays.copyOf(edges, numberOfNodes * 2);
+            degrees = Arrays.copyOf(degrees, numberOfNodes * 2);
+        }
+        return numberOfNodes++;
+    }
+
+    public void addEdge(int from, int to) {
+        if (isFrozen())
+            throw new IllegalStateException("graph is frozen");
+        checkNode(from);
+        checkNode(to);
+        int[] fromEdges = edges[from];
+        if (fromEdges == null)
+            fromEdges = edges[from] = new int[2];
+        else if (degrees[from] == fromEdges.length)
+            fromEdges = edges[from] = Arrays.copyOf(fromEdges, fromEdges.length * 2);
+        fromEdges[degrees[from]++] = to;
+        numberOfEdges += 1;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= numberOfNodes)
+            throw new IndexOutOfBoundsException("no node " + node);
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    public int getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
+    public boolean isFrozen() {
+        return offsets != null;
+    }
+
+    public void freeze() {
+        if (isFrozen())
+            return;
+        offsets = new int[numberOfNodes + 1];
+        targets = new int[numberOfEdges];
+        for (int node = 0; node < numberOfNodes; node++) {
+            offsets[node + 1] = offsets[node] + degrees[node];
+            if (degrees[node] > 0)
+                System.arraycopy(edges[node], 0, targets, offsets[node], degrees[node]);
+        }
+        edges = null;
+        degrees = null;
+    }
+
+    public int getDegree(int node) {
+        checkNode(node);
+        return isFrozen() ? offsets[node + 1] - offsets[node] : degrees[node];
+    }
+
+    //the k-th edge of node, in the order the edges were added
+    public int getEdge(int node, int k) {
+        return isFrozen() ? targets[offsets[node] + k] : edges[node][k];
+    }
+
+    //whether a path of at least one edge leads from first to second
+    public boolean isReachable(int first, int second) {
+        checkNode(second);
+        return getReachable(first, second).get(second);
+    }
+
+    //the nodes that a path of at least one edge leads to from node
+    public BitSet getReachable(int node) {
+        return getReachable(node, -1);
+    }
+
+    //stops as soon as target is reached
+    private BitSet getReachable(int node, int target) {
+        checkNode(node);
+        BitSet reached = new BitSet(numberOfNodes);
+        int[] pending = new int[16];
+        int size = 0;
+        pending[size++] = node;
+        while (size > 0) {
+            int current = pending[--size];
+            for (int k = 0, degree = getDegree(current); k < degree; k++) {
+                int next = getEdge(current, k);
+                if (reached.get(next))
+                    continue;
+                reached.set(next);
+                if (next == target)
+                    return reached;
+                if (size == pending.length)
+                    pending = Arrays.copyOf(pending, size * 2);
+                pending[size++] = next;
+            }
+        }
+        return reached;
+    }
+
+    //Every node in an order where each node comes before the nodes its edges lead to,
+    //or null if the graph has a cycle.
+    public int[] getTopologicalOrder() {
+        int[] inDegrees = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++)
+            for (int k = 0, degree = getDegree(node); k < degree; k++)
+                inDegrees[getEdge(node, k)] += 1;
+        int[] order = new int[numberOfNodes];
+        int size = 0;
+        for (int node = 0; node < numberOfNodes; node++)
+            if (inDegrees[node] == 0)
+                order[size++] = node;
+        for (int i = 0; i < size; i++) {
+            int current = order[i];
+            for (int k = 0, degree = getDegree(current); k < degree; k++) {
+                int next = getEdge(current, k);
+                inDegrees[next] -= 1;
+                if (inDegrees[next] == 0)
+                    order[size++] = next;
+            }
+        }
+        return size == numberOfNodes ? order : null;
+    }
+
+    //Every node on a cycle, a node with an edge to itself included. One pass of Tarjan's
+    //strongly connected components algorithm in O(nodes + edges); the depth first search
+    //keeps its own stack, so long paths cannot overflow the call stack.
+    public BitSet getNodesOnCycles() {
+        int[] index = new int[numberOfNodes];
+        Arrays.fill(index, -1);
+        int[] lowLink = new int[numberOfNodes];
+        boolean[] onStack = new boolean[numberOfNodes];
+        //the nodes of the components not completed yet
+        int[] component = new int[numberOfNodes];
+        int componentSize = 0;
+        //the path of the search, with the next edge to follow from each node on it
+        int[] path = new int[numberOfNodes];
+        int[] nextEdge = new int[numberOfNodes];
+        int pathSize = 0;
+        int numberOfIndexedNodes = 0;
+        BitSet nodesOnCycles = new BitSet(numberOfNodes);
+
+        for (int start = 0; start < numberOfNodes; start++) {
+            if (index[start] != -1)
+                continue;
+            int next = start;
+            while (next != -1 || pathSize > 0) {
+                if (next != -1) {
+                    index[next] = lowLink[next] = numberOfIndexedNodes++;
+                    onStack[next] = true;
+                    component[componentSize++] = next;
+                    path[pathSize] = next;
+                    nextEdge[pathSize++] = 0;
+                    next = -1;
+                    continue;
+                }
+                int current = path[pathSize - 1];
+                if (nextEdge[pathSize - 1] < getDegree(current)) {
+                    int parent = getEdge(current, nextEdge[pathSize - 1]++);
+                    if (index[parent] == -1)
+                        next = parent;
+                    else if (onStack[parent])
+                        lowLink[current] = Math.min(lowLink[current], index[parent]);
+                    continue;
+                }
+                pathSize -= 1;
+                if (pathSize > 0)
+                    lowLink[path[pathSize - 1]] = Math.min(lowLink[path[pathSize - 1]], lowLink[current]);
+                if (lowLink[current] != index[current])
+                    continue;
+                //current is the first node reached of its component, which is now complete
+                int member = component[--componentSize];
+                onStack[member] = false;
+                if (member != current) {
+                    nodesOnCycles.set(member);
+                    do {
+                        member = component[--componentSize];
+                        onStack[member] = false;
+                        nodesOnCycles.set(member);
+                    } while (member != current);
+                }
+                else if (hasEdge(current, current))
+                    nodesOnCycles.set(current);
+            }
+        }
+        return nodesOnCycles;
+    }
+
+    private boolean hasEdge(int from, int to) {
+        for (int k = 0, degree = getDegree(from); k < degree; k++)
+            if (getEdge(from, k) == to)
+                return true;
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package main.visitor;
 
+import main.CompilationContext;
 import main.ast.nodes.Node;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.FunctionDeclaration;
@@ -12,13 +13,36 @@ import main.ast.nodes.expression.values.primitive.IntValue;
 import main.ast.nodes.statement.*;
 import main.compileError.CompileError;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 
 public class ErrorReporter extends Visitor<Integer> {
-    private int printErrors(Node node) {
+    private final CompilationContext context;
+    private final PrintStream out;
+    private int numberOfVisitedNodes = 0;
+
+    public ErrorReporter(CompilationContext context) {
+        this(context, System.out);
+    }
+
+    //out may be null, in which case errors are only collected in the context
+    public ErrorReporter(CompilationContext context, PrintStream out) {
+        this.context = context;
+        this.out = out;
+    }
+
+    public int getNumberOfVisitedNodes() {
+        return numberOfVisitedNodes;
+    }
+
+    //reports the errors of this node only, not those of its children
+    public int printErrors(Node node) {
+        numberOfVisitedNodes += 1;
         ArrayList<CompileError> errors = node.flushErrors();
         for(CompileError compileErrorException : errors) {
-            System.out.println(compileErrorException.getMessage());
+            context.addDiagnostic(compileErrorException.getMessage());
+            if (out != null)
+                out.println(compileErrorException.getMessage());
         }
         return errors.size();
     }
@@ -1,11 +1,17 @@
 package main.visitor.name;
+import main.CompilationContext;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.*;
 import main.ast.nodes.declaration.struct.*;
 import main.ast.nodes.expression.*;
 import main.ast.nodes.statement.*;
 import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.TypeFactory;
 import main.compileError.nameError.*;
+import main.symbolTable.Binding;
+import main.symbolTable.Namespace;
+import main.symbolTable.StructLayout;
 import main.symbolTable.SymbolTable;
 import main.symbolTable.exceptions.*;
 import main.symbolTable.items.*;
@@ -14,21 +20,27 @@ import main.symbolTable.utils.graph.Graph;
 import main.visitor.Visitor;
 
 import java.util.ArrayList;
+import java.util.Set;
 
 public class NameAnalyser extends Visitor<Void> {
 
+    private final CompilationContext context;
     private int newId = 1;
     private boolean firstVisit = true;
     private boolean isInStruct = false;
     private String curStructName;
     private final Graph<String> structHierarchy = new Graph<>();
 
+    public NameAnalyser(CompilationContext context) {
+        this.context = context;
+    }
+
     private void createStructSymbolTable(StructDeclaration structDec) {
         SymbolTable newSymbolTable = new SymbolTable();
         StructSymbolTableItem newSymbolTableItem = new StructSymbolTableItem(structDec);
         newSymbolTableItem.setStructSymbolTable(newSymbolTable);
         try {
-            SymbolTable.root.put(newSymbolTableItem);
+            context.getRoot().put(newSymbolTableItem);
 
         } catch (ItemAlreadyExistsException e) {
             DuplicateStruct exception = new DuplicateStruct(structDec.getLine(), structDec.getStructName().getName());
@@ -39,7 +51,7 @@ public class NameAnalyser extends Visitor<Void> {
             try {
                 StructSymbolTableItem newStructSym = new StructSymbolTableItem(structDec);
                 newStructSym.setStructSymbolTable(newSymbolTable);
-                SymbolTable.root.put(newStructSym);
+                context.getRoot().put(newStructSym);
             } catch (ItemAlreadyExistsException e1) { //Unreachable
             }
         }
@@ -48,7 +60,7 @@ public class NameAnalyser extends Visitor<Void> {
     private void createFunctionSymbolTable(FunctionDeclaration funcDec) {
         FunctionSymbolTableItem newSymbolTableItem = new FunctionSymbolTableItem(funcDec);
         try {
-            SymbolTable.root.put(newSymbolTableItem);
+            context.getRoot().put(newSymbolTableItem);
 
         } catch (ItemAlreadyExistsException e) {
             DuplicateFunction exception = new DuplicateFunction(funcDec.getLine(), funcDec.getFunctionName().getName());
@@ -58,25 +70,21 @@ public class NameAnalyser extends Visitor<Void> {
             funcDec.setFunctionName(new Identifier(newName));
             try {
                 FunctionSymbolTableItem newFuncSym = new FunctionSymbolTableItem(funcDec);
-                SymbolTable.root.put(newFuncSym);
+                context.getRoot().put(newFuncSym);
             } catch (ItemAlreadyExistsException e1) { //Unreachable
             }
         }
     }
 
-    private boolean hasConflict(String key) {
-        try {
-            SymbolTable.root.getItem(key);
-            return true;
-        } catch (ItemNotFoundException exception) {
-            return false;
-        }
+    private boolean hasConflict(Namespace namespace, Identifier name) {
+        return context.getRoot().findItem(namespace, name.getNameId()) != null;
     }
 
     private void checkCycle(ArrayList<StructDeclaration> structs){
+        Set<String> cyclicStructs = structHierarchy.getNodesOnCycles();
         for(StructDeclaration struct : structs){
             String structName = struct.getStructName().getName();
-            if(structHierarchy.isSecondNodeAncestorOf(structName, structName)){
+            if(cyclicStructs.contains(structName)){
                 CyclicDependency exception = new CyclicDependency(struct.getLine(), structName);
                 struct.addError(exception);
             }
@@ -85,9 +93,20 @@ public class NameAnalyser extends Visitor<Void> {
 
     @Override
     public Void visit(Program program) {
+        declareGlobals(program);
+        for (FunctionDeclaration funcDec : program.getFunctions())
+            analyseFunction(funcDec);
+        analyseMain(program.getMain());
+        return null;
+    }
+
+    //Builds the root symbol table with every struct and function and analyses the struct
+    //bodies. Function bodies and main only read these tables, so they can then be analysed
+    //one by one, see IncrementalCompiler.
+    public void declareGlobals(Program program) {
         SymbolTable root = new SymbolTable();
-        SymbolTable.root = root;
-        SymbolTable.push(root);
+        context.setRoot(root);
+        context.push(root);
         for (StructDeclaration structDec : program.getStructs()) {
             createStructSymbolTable(structDec);
             try {
@@ -98,7 +117,7 @@ public class NameAnalyser extends Visitor<Void> {
         }
 
         for (FunctionDeclaration funcDec : program.getFunctions()) {
-            if (hasConflict(StructSymbolTableItem.START_KEY + funcDec.getFunctionName().getName())) {
+            if (hasConflict(Namespace.STRUCT, funcDec.getFunctionName())) {
                 FunctionStructConflict exception = new FunctionStructConflict(funcDec.getLine(), funcDec.getFunctionName().getName());
                 funcDec.addError(exception);
             }
@@ -106,32 +125,34 @@ public class NameAnalyser extends Visitor<Void> {
         }
 
         for (StructDeclaration structDec : program.getStructs()) {
-            try {
-                String key = StructSymbolTableItem.START_KEY + structDec.getStructName().getName();
-                StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root.getItem(key);
-                SymbolTable.push(structSymbolTableItem.getStructSymbolTable());
-                isInStruct = true;
-                curStructName = structDec.getStructName().getName();
-                structDec.accept(this);
-                isInStruct = false;
-                SymbolTable.pop();
-            } catch (ItemNotFoundException e) { //Unreachable
-            }
+            StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) context.getRoot().findItem(Namespace.STRUCT, structDec.getStructName().getNameId());
+            context.push(structSymbolTableItem.getStructSymbolTable());
+            isInStruct = true;
+            curStructName = structDec.getStructName().getName();
+            structDec.accept(this);
+            structSymbolTableItem.setLayout(StructLayout.of(structDec, structSymbolTableItem.getStructSymbolTable()));
+            isInStruct = false;
+            context.pop();
         }
 
+        structHierarchy.freeze();
         checkCycle(program.getStructs());
+        //nothing is declared globally after this, see SymbolTable.freeze
+        root.freeze();
+    }
 
-        for (FunctionDeclaration funcDec : program.getFunctions()) {
-            SymbolTable.push(new SymbolTable());
-            funcDec.accept(this);
-            SymbolTable.pop();
-        }
-
-        SymbolTable.push(new SymbolTable());
-        program.getMain().accept(this);
-        SymbolTable.pop();
+    public void analyseFunction(FunctionDeclaration funcDec) {
+        funcDec.setScope(new SymbolTable());
+        context.push(funcDec.getScope());
+        funcDec.accept(this);
+        context.pop();
+    }
 
-        return null;
+    public void analyseMain(MainDeclaration mainDec) {
+        mainDec.setScope(new SymbolTable());
+        context.push(mainDec.getScope());
+        mainDec.accept(this);
+        context.pop();
     }
 
     @Override
@@ -170,25 +191,27 @@ public class NameAnalyser extends Visitor<Void> {
 
     @Override
     public Void visit(ConditionalStmt conditionalStmt) {
-        SymbolTable ifScope = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(ifScope);
+        conditionalStmt.getCondition().accept(this);
+        conditionalStmt.setThenScope(new SymbolTable(context.getTop()));
+        context.push(conditionalStmt.getThenScope());
         conditionalStmt.getThenBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
         if (conditionalStmt.getElseBody() != null) {
-            SymbolTable elseScope = new SymbolTable(SymbolTable.top);
-            SymbolTable.push(elseScope);
+            conditionalStmt.setElseScope(new SymbolTable(context.getTop()));
+            context.push(conditionalStmt.getElseScope());
             conditionalStmt.getElseBody().accept(this);
-            SymbolTable.pop();
+            context.pop();
         }
         return null;
     }
 
     @Override
     public Void visit(LoopStmt loopStmt) {
-        SymbolTable loopScope = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(loopScope);
+        loopStmt.getCondition().accept(this);
+        loopStmt.setScope(new SymbolTable(context.getTop()));
+        context.push(loopStmt.getScope());
         loopStmt.getBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
         return null;
     }
 
@@ -205,7 +228,8 @@ public class NameAnalyser extends Visitor<Void> {
         String name = setGetVarDeclaration.getVarName().getName();
         if (firstVisit) {
             setGetVarDeclaration.getVarDec().accept(this);
-            SymbolTable newSym = new SymbolTable();
+            //the property's scope encloses the arguments and is enclosed by the struct's
+            SymbolTable newSym = new SymbolTable(context.getTop());
             FunctionDeclaration funcDec = new FunctionDeclaration();
 
             funcDec.setFunctionName(new Identifier(name));
@@ -214,7 +238,7 @@ public class NameAnalyser extends Visitor<Void> {
             FunctionSymbolTableItem newItem = new FunctionSymbolTableItem(funcDec);
             newItem.setFunctionSymbolTable(newSym);
             try {
-                SymbolTable.top.put(newItem);
+                context.getTop().put(newItem);
             } catch (ItemAlreadyExistsException e) {
                 setGetVarDeclaration.setVarName(new Identifier(name + "@" + newId));
                 funcDec.setFunctionName(new Identifier(name + "@" + newId));
@@ -222,23 +246,17 @@ public class NameAnalyser extends Visitor<Void> {
                 FunctionSymbolTableItem fSym = new FunctionSymbolTableItem(funcDec);
                 fSym.setFunctionSymbolTable(newSym);
                 try{
-                    SymbolTable.top.put(fSym);
+                    context.getTop().put(fSym);
                 }catch (ItemAlreadyExistsException e2) {//unreachable
                 }
             }
         }
         else {
-            try {
-                String key = FunctionSymbolTableItem.START_KEY + name;
-                FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) SymbolTable.top.getItem(key);
-                SymbolTable sym = fItem.getFunctionSymbolTable();
-                sym.pre = SymbolTable.top;
-                SymbolTable.push(sym);
-                for (VariableDeclaration arg : setGetVarDeclaration.getArgs())
-                    arg.accept(this);
-                SymbolTable.pop();
-            } catch (ItemNotFoundException e) {//unreachable
-            }
+            FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) context.getTop().findItem(Namespace.FUNCTION, setGetVarDeclaration.getVarName().getNameId());
+            context.push(fItem.getFunctionSymbolTable());
+            for (VariableDeclaration arg : setGetVarDeclaration.getArgs())
+                arg.accept(this);
+            context.pop();
         }
         return null;
     }
@@ -256,27 +274,167 @@ public class NameAnalyser extends Visitor<Void> {
             }
         }
 
-        if (hasConflict(StructSymbolTableItem.START_KEY + name)) {
+        if (hasConflict(Namespace.STRUCT, variableDeclaration.getVarName())) {
             VarStructConflict exception = new VarStructConflict(variableDeclaration.getLine(), name);
             variableDeclaration.addError(exception);
         }
 
-        if (hasConflict(FunctionSymbolTableItem.START_KEY + name)) {
+        if (hasConflict(Namespace.FUNCTION, variableDeclaration.getVarName())) {
             VarFunctionConflict exception = new VarFunctionConflict(variableDeclaration.getLine(), name);
             variableDeclaration.addError(exception);
         }
 
+        //the default value is resolved before the variable itself is in scope
+        if (variableDeclaration.getDefaultValue() != null)
+            variableDeclaration.getDefaultValue().accept(this);
+
         VariableSymbolTableItem variableSymbolTableItem = new VariableSymbolTableItem(variableDeclaration.getVarName());
-        try {
-            SymbolTable.top.getItem(variableSymbolTableItem.getKey());
+        variableSymbolTableItem.setType(TypeFactory.intern(variableDeclaration.getVarType()));
+        if (context.getTop().findItem(Namespace.VARIABLE, variableSymbolTableItem.getNameId()) != null) {
             DuplicateVar exception = new DuplicateVar(variableDeclaration.getLine(), name);
             variableDeclaration.addError(exception);
-        } catch (ItemNotFoundException exception2) {
+        }
+        else {
             try {
-                SymbolTable.top.put(variableSymbolTableItem);
+                context.getTop().put(variableSymbolTableItem);
+                variableDeclaration.getVarName().setBinding(new Binding(variableSymbolTableItem, 0, variableSymbolTableItem.getSlot(), null));
             } catch (ItemAlreadyExistsException exception3) { //unreachable
             }
         }
         return null;
     }
+
+    //Statements and expressions are only visited to resolve the identifiers in them.
+    //This is done in function and main bodies; in structs, and in setters and getters
+    //which are not analysed here, TypeChecker still looks names up itself.
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        assignmentStmt.getLValue().accept(this);
+        assignmentStmt.getRValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(DisplayStmt displayStmt) {
+        displayStmt.getArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        if (returnStmt.getReturnedExpr() != null)
+            returnStmt.getReturnedExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        binaryExpression.getFirstOperand().accept(this);
+        binaryExpression.getSecondOperand().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        unaryExpression.getOperand().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCall funcCall) {
+        funcCall.getInstance().accept(this);
+        for (Expression arg : funcCall.getArgs())
+            arg.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ExprInPar exprInPar) {
+        for (Expression input : exprInPar.getInputs())
+            input.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        listAppend.getListArg().accept(this);
+        listAppend.getElementArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSize listSize) {
+        listSize.getArg().accept(this);
+        return null;
+    }
+
+    //functions are found before variables, as in ExpressionTypeChecker
+    @Override
+    public Void visit(Identifier identifier) {
+        if (isInStruct)
+            return null;
+        SymbolTableItem function = context.getRoot().findItem(Namespace.FUNCTION, identifier.getNameId());
+        if (function != null) {
+            identifier.setBinding(new Binding(function, Binding.GLOBAL, function.getSlot(), null));
+            return null;
+        }
+        Binding variable = context.getTop().findBinding(Namespace.VARIABLE, identifier.getNameId());
+        identifier.setBinding(variable != null ? variable : Binding.UNDECLARED);
+        return null;
+    }
+
+    //the member is only bound when the struct of the instance follows from declarations
+    @Override
+    public Void visit(StructAccess structAccess) {
+        structAccess.getInstance().accept(this);
+        if (isInStruct)
+            return null;
+        StructSymbolTableItem struct = structOf(structAccess.getInstance());
+        if (struct == null)
+            return null;
+        int member = struct.getLayout().indexOf(structAccess.getElement().getNameId());
+        if (member != -1)
+            structAccess.setBinding(new Binding(struct.getLayout().getMember(member), 0, member, struct));
+        return null;
+    }
+
+    private StructSymbolTableItem structOf(Expression instance) {
+        Binding binding = null;
+        if (instance instanceof Identifier)
+            binding = ((Identifier) instance).getBinding();
+        else if (instance instanceof StructAccess)
+            binding = ((StructAccess) instance).getBinding();
+        if (binding == null || !(binding.getItem() instanceof VariableSymbolTableItem))
+            return null;
+        Type type = ((VariableSymbolTableItem) binding.getItem()).getType();
+        if (!(type instanceof StructType))
+            return null;
+        return (StructSymbolTableItem) context.getRoot().findItem(Namespace.STRUCT, ((StructType) type).getStructName().getNameId());
+    }
 }
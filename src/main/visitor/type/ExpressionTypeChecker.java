@@ -1,5 +1,6 @@
 package main.visitor.type;
 
+import main.CompilationContext;
 import main.ast.nodes.expression.*;
 import main.ast.nodes.expression.operators.BinaryOperator;
 import main.ast.nodes.expression.operators.UnaryOperator;
@@ -9,15 +10,15 @@ import main.ast.types.ListType;
 import main.ast.types.NoType;
 import main.ast.types.StructType;
 import main.ast.types.Type;
-import main.ast.types.primitives.BoolType;
+import main.ast.types.TypeFactory;
 import main.ast.types.primitives.IntType;
 import main.ast.types.primitives.VoidType;
 import main.compileError.typeError.*;
-import main.symbolTable.SymbolTable;
-import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.Binding;
+import main.symbolTable.Namespace;
+import main.symbolTable.StructLayout;
 import main.symbolTable.items.FunctionSymbolTableItem;
 import main.symbolTable.items.StructSymbolTableItem;
-import main.symbolTable.items.SymbolTableItem;
 import main.symbolTable.items.VariableSymbolTableItem;
 import main.visitor.Visitor;
 import main.ast.types.FptrType;
@@ -26,10 +27,16 @@ import java.util.ArrayList;
 
 public class ExpressionTypeChecker extends Visitor<Type> {
 
+    private final CompilationContext context;
     private FunctionSymbolTableItem currentFunction;
     private StructSymbolTableItem currentStruct;
     private boolean fCallStmt;
-    
+    private final TypeCompatibility compatibility = new TypeCompatibility();
+
+    public ExpressionTypeChecker(CompilationContext context) {
+        this.context = context;
+    }
+
     public void setCurrentFunction(FunctionSymbolTableItem cf){
         this.currentFunction = cf;
     }
@@ -44,77 +51,25 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
 
-    public boolean checkSpecialTypeEquality (Type t1, Type t2){
-        //check NoType equality
-        if(t1 instanceof NoType || t2 instanceof NoType) return true;
-
-
-
-            //check Int, Bool, Void equality
-            boolean it1 = t1 instanceof IntType;
-            boolean bt1 = t1 instanceof BoolType;
-            boolean vt1 = t1 instanceof VoidType;
-
-            boolean it2 = t2 instanceof IntType;
-            boolean bt2 = t2 instanceof BoolType;
-            boolean vt2 = t2 instanceof VoidType;
-
-            boolean lt1 = t1 instanceof ListType;
-            boolean lt2 = t2 instanceof ListType;
-
-            boolean ft1 = t1 instanceof FptrType;
-            boolean ft2 = t2 instanceof FptrType;
-
-            boolean st1 = t1 instanceof StructType;
-            boolean st2 = t2 instanceof StructType;
-
-        //check Int, Bool, Void equality
-
-            if(vt1 && vt2){
-                return true;
-            }
-        if(it1 && it2){
-            return true;
-        }
-        if(bt1 && bt2){
-            return true;
-        }
-
-            //check List equality
-            if(lt1 && lt2){
-                return checkSpecialTypeEquality(((ListType) t1).getType(),((ListType) t2).getType());
-            }
-
-            //check Fptr equality
-            if(ft1 && ft2){
-                FptrType f1 = (FptrType) t1;
-                FptrType f2 = (FptrType) t2;
-                if (!checkSpecialTypeEquality(f1.getReturnType(), f2.getReturnType()))
-                    return false; //functions return type should be equal.
-
-                //if return type was the same we have to check each argument
-
-                ArrayList<Type> f1Arguments = f1.getArgsType();
-                ArrayList<Type> f2Arguments = f1.getArgsType();
-
-                if (f1Arguments.size() != f2Arguments.size()) return false;
-                    for (int index = 0; index < f1Arguments.size(); index++) {
-                        if (!checkSpecialTypeEquality((f1Arguments.get(index)), f2Arguments.get(index))) return false;
-                }
-                return true;
-            }
-
-            //check Struct equality
-            if (st1 && st2){
-                return (((StructType) t1).getStructName().equals(((StructType) t2).getStructName()));
-            }
-            return false;
-        }
-
+    //Every visit records the type it computes on its expression, see Expression.getType;
+    //the checking itself is done by the typeOf methods.
+    private Type resolved(Expression expression, Type type) {
+        expression.setType(type);
+        return type;
+    }
 
+    //see TypeCompatibility
+    public boolean checkSpecialTypeEquality (Type t1, Type t2){
+        return compatibility.isCompatible(t1, t2);
+    }
 
     @Override
     public Type visit(BinaryExpression binaryExpression) {
+        return resolved(binaryExpression, typeOf(binaryExpression));
+    }
+
+    //see OperatorTable
+    private Type typeOf(BinaryExpression binaryExpression) {
         Expression lxp, rxp;
         lxp = binaryExpression.getFirstOperand();
         rxp = binaryExpression.getSecondOperand();
@@ -124,89 +79,61 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
         BinaryOperator operator = binaryExpression.getBinaryOperator();
 
-        if (operator.equals(BinaryOperator.add)  || operator.equals(BinaryOperator.sub)
-                || operator.equals(BinaryOperator.mult) || operator.equals(BinaryOperator.div))
-        {
-            if (lxpt instanceof IntType && rxpt instanceof IntType) {
-                return new IntType();
-            }
-            else if (lxpt instanceof NoType || rxpt instanceof NoType) {
-                return new NoType();
-            }
-        }
-
-        else if (operator.equals(BinaryOperator.or)  || operator.equals(BinaryOperator.and)){
-            if (lxpt instanceof BoolType && rxpt instanceof BoolType) {
-                return new BoolType();
-            }
-            else if (lxpt instanceof NoType || rxpt instanceof NoType) {
-                return new NoType();
-            }
-        }
-
-        else if (operator.equals(BinaryOperator.eq)){
-            if(lxpt instanceof  ListType || rxpt instanceof ListType){
-                UnsupportedOperandType error = new UnsupportedOperandType(lxp.getLine(), operator.name());
-                binaryExpression.addError(error);
-                return new NoType();
-            }
-            else if (lxpt.equals(rxpt)) {
-                return new BoolType();
-            }
-            else if (lxpt instanceof NoType || rxpt instanceof NoType) {
-                return new NoType();
-            }
-
-        }
-
-        else if (operator.equals(BinaryOperator.gt) || operator.equals(BinaryOperator.lt)){
-            if (lxpt instanceof IntType && rxpt instanceof IntType)
-                return new BoolType();
-
-            if ((lxpt instanceof NoType || lxpt instanceof IntType) &&
-                    (rxpt instanceof IntType || rxpt instanceof NoType))
-                return new NoType();
+        switch (OperatorTable.binary(operator, lxpt.getKind(), rxpt.getKind())) {
+            case OperatorTable.INT:
+                return TypeFactory.INT;
+            case OperatorTable.BOOL:
+                return TypeFactory.BOOL;
+            case OperatorTable.NO_TYPE:
+                return TypeFactory.NO_TYPE;
+            case OperatorTable.EQUALITY:
+                if (checkSpecialTypeEquality(lxpt, rxpt))
+                    return TypeFactory.BOOL;
+                break;
+            case OperatorTable.UNSUPPORTED_EXPRESSION:
+                binaryExpression.addError(new UnsupportedOperandType(lxp.getLine(), operator.name()));
+                return TypeFactory.NO_TYPE;
         }
 
         UnsupportedOperandType error = new UnsupportedOperandType(lxp.getLine(), operator.name());
         lxp.addError(error);
-        return new NoType();
+        return TypeFactory.NO_TYPE;
 
     }
 
     @Override
     public Type visit(UnaryExpression unaryExpression) {
+        return resolved(unaryExpression, typeOf(unaryExpression));
+    }
+
+    //see OperatorTable
+    private Type typeOf(UnaryExpression unaryExpression) {
 
         Expression exp;
         exp = unaryExpression.getOperand();
         UnaryOperator operator = unaryExpression.getOperator();
         Type expt = exp.accept(this);
 
-        if (operator.equals(UnaryOperator.not)){
-            if(expt instanceof BoolType){
-                return new BoolType();
-            }
-            else if(expt instanceof NoType){
-                return new NoType();
-            }
-        }
-
-        else if (operator.equals(UnaryOperator.minus)){
-            if (expt instanceof IntType){
-                return new IntType();
-            }
-            else if(expt instanceof NoType){
-                return new NoType();
-            }
+        switch (OperatorTable.unary(operator, expt.getKind())) {
+            case OperatorTable.INT:
+                return TypeFactory.INT;
+            case OperatorTable.BOOL:
+                return TypeFactory.BOOL;
+            case OperatorTable.NO_TYPE:
+                return TypeFactory.NO_TYPE;
         }
 
         UnsupportedOperandType error = new UnsupportedOperandType(exp.getLine(), operator.name());
         exp.addError(error);
-        return new NoType();
+        return TypeFactory.NO_TYPE;
     }
 
     @Override
     public Type visit(FunctionCall funcCall) {
+        return resolved(funcCall, typeOf(funcCall));
+    }
+
+    private Type typeOf(FunctionCall funcCall) {
         Expression instance = funcCall.getInstance();
         Type originalFuncType = instance.accept(this);
 
@@ -246,7 +173,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 }
             }
 
-            return (funcPtrType.getReturnType() instanceof VoidType) ? new NoType() : funcPtrType.getReturnType();
+            return (funcPtrType.getReturnType() instanceof VoidType) ? TypeFactory.NO_TYPE : funcPtrType.getReturnType();
 
         } catch (Exception e) {
             //invalid call on a non-function
@@ -254,7 +181,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 CallOnNoneFptrType error = new CallOnNoneFptrType(funcCall.getLine());
                 funcCall.addError(error);
             }
-            return new NoType();
+            return TypeFactory.NO_TYPE;
         }
 
     }
@@ -262,29 +189,43 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
     @Override
     public Type visit(Identifier identifier) {
+        return resolved(identifier, typeOf(identifier));
+    }
 
-        try {
-            String idName = identifier.getName();
-            String fullIdName = FunctionSymbolTableItem.START_KEY + idName;
-            FunctionSymbolTableItem functionSymbolTableItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(fullIdName);
-            return new FptrType(functionSymbolTableItem.getArgTypes(), functionSymbolTableItem.getReturnType());
-
-        }catch (ItemNotFoundException e) {
-            try {
-                String idName = identifier.getName();
-                String fullIdName = VariableSymbolTableItem.START_KEY + idName;
-                VariableSymbolTableItem variableSymbolTableItem = (VariableSymbolTableItem) SymbolTable.top.getItem(fullIdName);
-                return variableSymbolTableItem.getType();
-            } catch (ItemNotFoundException e1) {
-                VarNotDeclared error = new VarNotDeclared(identifier.getLine(), identifier.getName());
-                identifier.addError(error);
-                return new NoType();
+    private Type typeOf(Identifier identifier) {
+
+        Binding binding = identifier.getBinding();
+        if (binding != null) {
+            if (binding.getItem() instanceof FunctionSymbolTableItem) {
+                FunctionSymbolTableItem function = (FunctionSymbolTableItem) binding.getItem();
+                return function.getType();
             }
+            if (binding.isDeclared())
+                return ((VariableSymbolTableItem) binding.getItem()).getType();
+            VarNotDeclared error = new VarNotDeclared(identifier.getLine(), identifier.getName());
+            identifier.addError(error);
+            return TypeFactory.NO_TYPE;
         }
+
+        FunctionSymbolTableItem functionSymbolTableItem = (FunctionSymbolTableItem) context.getRoot().findItem(Namespace.FUNCTION, identifier.getNameId());
+        if (functionSymbolTableItem != null)
+            return functionSymbolTableItem.getType();
+
+        VariableSymbolTableItem variableSymbolTableItem = (VariableSymbolTableItem) context.getTop().findItem(Namespace.VARIABLE, identifier.getNameId());
+        if (variableSymbolTableItem != null)
+            return variableSymbolTableItem.getType();
+
+        VarNotDeclared error = new VarNotDeclared(identifier.getLine(), identifier.getName());
+        identifier.addError(error);
+        return TypeFactory.NO_TYPE;
     }
 
     @Override
     public Type visit(ListAccessByIndex listAccessByIndex) {
+        return resolved(listAccessByIndex, typeOf(listAccessByIndex));
+    }
+
+    private Type typeOf(ListAccessByIndex listAccessByIndex) {
 
         Type instanceType = listAccessByIndex.getInstance().accept(this);
         Type indexType = listAccessByIndex.getIndex().accept(this);
@@ -302,24 +243,28 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
 
         if(ins_nt)
-            return new NoType();
+            return TypeFactory.NO_TYPE;
 
         if(!ins_lt){
             AccessByIndexOnNonList error = new AccessByIndexOnNonList(listAccessByIndex.getLine());
             listAccessByIndex.addError(error);
-            return new NoType();
+            return TypeFactory.NO_TYPE;
         }
 
         else {
             if (it)
                 return ((ListType) instanceType).getType();
             else
-                return new NoType();
+                return TypeFactory.NO_TYPE;
         }
     }
 
     @Override
     public Type visit(StructAccess structAccess) {
+        return resolved(structAccess, typeOf(structAccess));
+    }
+
+    private Type typeOf(StructAccess structAccess) {
         Type stInstanceType = structAccess.getInstance().accept(this);
 
         boolean st_st = stInstanceType instanceof StructType;
@@ -331,43 +276,52 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
 
         else if (st_st){
-            String stName = ((StructType) stInstanceType).getStructName().getName();
-            String fullstName = StructSymbolTableItem.START_KEY + stName;
-            String stVariableName = structAccess.getElement().getName();
-            String fullstVariableName = VariableSymbolTableItem.START_KEY + stVariableName;
-
-            try {
-                SymbolTableItem symbolTableItem = SymbolTable.root.getItem(fullstName);
-                SymbolTable symbolTable = ((StructSymbolTableItem) symbolTableItem).getStructSymbolTable();
-                SymbolTableItem elItem = symbolTable.getItem(fullstVariableName);
-                return ((VariableSymbolTableItem) elItem).getType();
-
-            } catch (ItemNotFoundException e) {
-                StructMemberNotFound error = new StructMemberNotFound(structAccess.getLine(), stName, stVariableName);
-                structAccess.addError(error);
+            Identifier stName = ((StructType) stInstanceType).getStructName();
+            Identifier stVariableName = structAccess.getElement();
+            Binding binding = structAccess.getBinding();
+            if (binding != null && binding.getOwner().getNameId() == stName.getNameId())
+                return ((VariableSymbolTableItem) binding.getItem()).getType();
+
+            StructSymbolTableItem structItem = (StructSymbolTableItem) context.getRoot().findItem(Namespace.STRUCT, stName.getNameId());
+            if (structItem != null) {
+                StructLayout layout = structItem.getLayout();
+                int member = layout.indexOf(stVariableName.getNameId());
+                if (member != -1)
+                    return layout.getType(member);
             }
+
+            StructMemberNotFound error = new StructMemberNotFound(structAccess.getLine(), stName.getName(), stVariableName.getName());
+            structAccess.addError(error);
         }
-        return new NoType();
+        return TypeFactory.NO_TYPE;
     }
 
     @Override
     public Type visit(ListSize listSize) {
+        return resolved(listSize, typeOf(listSize));
+    }
+
+    private Type typeOf(ListSize listSize) {
 
         Type instanceType = listSize.getArg().accept(this);
 
         if(instanceType instanceof ListType)
-            return new IntType();
+            return TypeFactory.INT;
         else {
             if(!(instanceType instanceof NoType)) {
                 GetSizeOfNonList error = new GetSizeOfNonList(listSize.getLine());
                 listSize.addError(error);
             }
-            return new NoType();
+            return TypeFactory.NO_TYPE;
         }
     }
 
     @Override
     public Type visit(ListAppend listAppend) {
+        return resolved(listAppend, typeOf(listAppend));
+    }
+
+    private Type typeOf(ListAppend listAppend) {
 
         Type argType = listAppend.getListArg().accept(this);
         Type elType = listAppend.getElementArg().accept(this);
@@ -377,37 +331,47 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             listAppend.addError(error);
         }
 
-        if(argType instanceof NoType) return new VoidType();
+        if(argType instanceof NoType) return TypeFactory.VOID;
 
         //check if argType is unhandled.
         if (!(argType instanceof ListType)){
             AppendToNonList error = new AppendToNonList(listAppend.getLine());
             listAppend.addError(error);
-            return new NoType();
+            return TypeFactory.NO_TYPE;
         }
         //check if the given type for the argument matches with the original definition.
         if (!(checkSpecialTypeEquality(((ListType) argType).getType(), elType))){
             NewElementTypeNotMatchListType error = new NewElementTypeNotMatchListType(listAppend.getLine());
             listAppend.addError(error);
-            return new NoType();
+            return TypeFactory.NO_TYPE;
         }
-        return new VoidType(); //return value is choosed based on TA explanations.
+        return TypeFactory.VOID; //return value is choosed based on TA explanations.
     }
 
     @Override
     public Type visit(ExprInPar exprInPar) {
+        return resolved(exprInPar, typeOf(exprInPar));
+    }
+
+    private Type typeOf(ExprInPar exprInPar) {
         return exprInPar.getInputs().get(0).accept(this);
     }
 
     @Override
     public Type visit(IntValue intValue) {
-        //Todo
-        return null;
+        return resolved(intValue, typeOf(intValue));
+    }
+
+    private Type typeOf(IntValue intValue) {
+        return TypeFactory.INT;
     }
 
     @Override
     public Type visit(BoolValue boolValue) {
-        //Todo
-        return null;
+        return resolved(boolValue, typeOf(boolValue));
+    }
+
+    private Type typeOf(BoolValue boolValue) {
+        return TypeFactory.BOOL;
     }
 }
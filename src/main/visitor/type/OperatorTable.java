@@ -0,0 +1,83 @@
+package main.visitor.type;
+
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.types.TypeKind;
+
+//The typing rules of the operators, precomputed for every operator and kind of operand: the
+//outcome of a binary expression is one index into a table by operator, left kind and right
+//kind, that of a unary expression by operator and kind. Only == needs more than the kinds
+//of its operands; its outcome EQUALITY asks ExpressionTypeChecker to check that they are
+//compatible. The tables are built once and never written, so they are shared by all checkers.
+final class OperatorTable {
+    static final byte INT = 0;
+    static final byte BOOL = 1;
+    static final byte NO_TYPE = 2;
+    //bool if the operands are compatible, otherwise an unsupported operand on the left one
+    static final byte EQUALITY = 3;
+    //unsupported operand, reported on the (left) operand
+    static final byte UNSUPPORTED = 4;
+    //unsupported operand, reported on the whole expression: == on a list
+    static final byte UNSUPPORTED_EXPRESSION = 5;
+
+    private static final TypeKind[] KINDS = TypeKind.values();
+    private static final int K = KINDS.length;
+
+    private static final byte[] BINARY = new byte[BinaryOperator.values().length * K * K];
+    private static final byte[] UNARY = new byte[UnaryOperator.values().length * K];
+
+    static {
+        for (BinaryOperator operator : BinaryOperator.values())
+            for (TypeKind left : KINDS)
+                for (TypeKind right : KINDS)
+                    BINARY[(operator.ordinal() * K + left.ordinal()) * K + right.ordinal()] = binaryRule(operator, left, right);
+        for (UnaryOperator operator : UnaryOperator.values())
+            for (TypeKind kind : KINDS)
+                UNARY[operator.ordinal() * K + kind.ordinal()] = unaryRule(operator, kind);
+    }
+
+    private OperatorTable() {
+    }
+
+    static byte binary(BinaryOperator operator, TypeKind left, TypeKind right) {
+        return BINARY[(operator.ordinal() * K + left.ordinal()) * K + right.ordinal()];
+    }
+
+    static byte unary(UnaryOperator operator, TypeKind kind) {
+        return UNARY[operator.ordinal() * K + kind.ordinal()];
+    }
+
+    private static byte binaryRule(BinaryOperator operator, TypeKind left, TypeKind right) {
+        boolean noType = left == TypeKind.NO_TYPE || right == TypeKind.NO_TYPE;
+        switch (operator) {
+            case add: case sub: case mult: case div:
+                if (left == TypeKind.INT && right == TypeKind.INT)
+                    return INT;
+                return noType ? NO_TYPE : UNSUPPORTED;
+            case and: case or:
+                if (left == TypeKind.BOOL && right == TypeKind.BOOL)
+                    return BOOL;
+                return noType ? NO_TYPE : UNSUPPORTED;
+            case eq:
+                if (left == TypeKind.LIST || right == TypeKind.LIST)
+                    return UNSUPPORTED_EXPRESSION;
+                return noType ? NO_TYPE : EQUALITY;
+            case gt: case lt:
+                if (left == TypeKind.INT && right == TypeKind.INT)
+                    return BOOL;
+                //a NoType operand only hides the error when the other one is an int or NoType
+                boolean leftInt = left == TypeKind.INT || left == TypeKind.NO_TYPE;
+                boolean rightInt = right == TypeKind.INT || right == TypeKind.NO_TYPE;
+                return leftInt && rightInt ? NO_TYPE : UNSUPPORTED;
+            default: //assign is a statement, not an expression
+                return UNSUPPORTED;
+        }
+    }
+
+    private static byte unaryRule(UnaryOperator operator, TypeKind kind) {
+        TypeKind operand = operator == UnaryOperator.not ? TypeKind.BOOL : TypeKind.INT;
+        if (kind == operand)
+            return operand == TypeKind.BOOL ? BOOL : INT;
+        return kind == TypeKind.NO_TYPE ? NO_TYPE : UNSUPPORTED;
+    }
+}
@@ -0,0 +1,112 @@
+package main.visitor.type;
+
+import main.CompilationContext;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.Declaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.symbolTable.Namespace;
+import main.symbolTable.StructLayout;
+import main.symbolTable.items.StructSymbolTableItem;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+//Type checks a program like TypeChecker, with every struct, function and main checked as a
+//task of a ForkJoinPool. Each task has a TypeChecker of its own on a fork of the context, so
+//the checker state (current function, main, getter and setter flags, the scope stack and
+//the ExpressionTypeChecker with its TypeCompatibility) is never shared. The errors are left
+//on the nodes, as by TypeChecker, so ErrorReporter reports them in the same order as after
+//a serial check.
+//
+//Tasks only share what NameAnalyser built: the frozen root, and the struct tables, whose
+//members get their types while their struct is checked. So all struct bodies are checked
+//before any function body. A struct body sees the members of the structs checked before it;
+//when a member has an undeclared struct type, which TypeChecker changes to NoType, that order
+//matters and the struct bodies are checked one by one, as serially.
+//
+//The struct tables are written without locks in the first phase and read in the second.
+//That is safe because checkInParallel returns only after Future.get of every task, which
+//orders the writes of a phase before the tasks of the next phase are submitted, and
+//submission orders them before those tasks run. The two phases must stay two calls. The
+//other shared items are not written by the checkers: a function's fptr type is built with
+//its FunctionSymbolTableItem, and interned types are immutable.
+public class ParallelTypeChecker extends Visitor<Void> {
+    private final CompilationContext context;
+    private final ForkJoinPool pool;
+
+    public ParallelTypeChecker(CompilationContext context) {
+        this(context, ForkJoinPool.commonPool());
+    }
+
+    public ParallelTypeChecker(CompilationContext context, ForkJoinPool pool) {
+        this.context = context;
+        this.pool = pool;
+    }
+
+    @Override
+    public Void visit(Program program) {
+        if (hasUndeclaredMemberType(program)) {
+            TypeChecker typeChecker = new TypeChecker(context);
+            for (StructDeclaration structDec : program.getStructs())
+                structDec.accept(typeChecker);
+        }
+        else
+            checkInParallel(new ArrayList<>(program.getStructs()));
+
+        ArrayList<Declaration> bodies = new ArrayList<>(program.getFunctions());
+        bodies.add(program.getMain());
+        checkInParallel(bodies);
+        return null;
+    }
+
+    private boolean hasUndeclaredMemberType(Program program) {
+        for (StructDeclaration structDec : program.getStructs()) {
+            StructSymbolTableItem struct = findStruct(structDec.getStructName().getNameId());
+            StructLayout layout = struct != null ? struct.getLayout() : null;
+            if (layout == null)
+                return true; //not analysed as declareGlobals does, keep the serial order
+            for (int i = 0; i < layout.getNumberOfMembers(); i++) {
+                Type type = layout.getType(i);
+                if (type instanceof StructType && findStruct(((StructType) type).getStructName().getNameId()) == null)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private StructSymbolTableItem findStruct(int nameId) {
+        return (StructSymbolTableItem) context.getRoot().findItem(Namespace.STRUCT, nameId);
+    }
+
+    //one task per declaration; returns when all of them are checked
+    private void checkInParallel(ArrayList<Declaration> declarations) {
+        ArrayList<Callable<CompilationContext>> tasks = new ArrayList<>();
+        for (Declaration declaration : declarations) {
+            CompilationContext task = context.fork();
+            tasks.add(() -> {
+                declaration.accept(new TypeChecker(task));
+                return task;
+            });
+        }
+        try {
+            for (Future<CompilationContext> checked : pool.invokeAll(tasks))
+                context.join(checked.get());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("type checking was interrupted", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package main.visitor.type;
 
+import main.CompilationContext;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.*;
 import main.ast.nodes.declaration.struct.*;
@@ -10,9 +11,9 @@ import main.ast.types.*;
 import main.ast.types.primitives.BoolType;
 import main.ast.types.primitives.IntType;
 import main.compileError.typeError.*;
+import main.symbolTable.Namespace;
 import main.symbolTable.SymbolTable;
 import main.symbolTable.exceptions.ItemAlreadyExistsException;
-import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.FunctionSymbolTableItem;
 import main.symbolTable.items.StructSymbolTableItem;
 import main.symbolTable.items.VariableSymbolTableItem;
@@ -21,6 +22,7 @@ import main.visitor.Visitor;
 
 
 public class TypeChecker extends Visitor<Void> {
+    private final CompilationContext context;
     private boolean checkMain;
     private boolean checkGetter;
     private Type globalGetterType;
@@ -30,24 +32,24 @@ public class TypeChecker extends Visitor<Void> {
     private FunctionSymbolTableItem currentFunction;
     private StructSymbolTableItem currentStruct;
 
+    public TypeChecker(CompilationContext context) {
+        this.context = context;
+        this.expressionTypeChecker = new ExpressionTypeChecker(context);
+    }
 
 
-    private FunctionSymbolTableItem findFSTI(String function_name) {
-        try{
-            return (FunctionSymbolTableItem) SymbolTable.root.getItem(FunctionSymbolTableItem.START_KEY + function_name);
-        }
-        catch (ItemNotFoundException e){
-            return null;
-        }
+    private FunctionSymbolTableItem findFSTI(Identifier function_name) {
+        return (FunctionSymbolTableItem) context.getRoot().findItem(Namespace.FUNCTION, function_name.getNameId());
     }
 
-    private StructSymbolTableItem findSSTI(String struct_name) {
-        try{
-            return (StructSymbolTableItem) SymbolTable.root.getItem(StructSymbolTableItem.START_KEY + struct_name);
-        }
-        catch (ItemNotFoundException e){
-            return null;
-        }
+    private StructSymbolTableItem findSSTI(Identifier struct_name) {
+        return (StructSymbolTableItem) context.getRoot().findItem(Namespace.STRUCT, struct_name.getNameId());
+    }
+
+    //Pushes the scope NameAnalyser built for a node; a program whose names were not
+    //analysed gets a new scope instead.
+    private void pushScope(SymbolTable scope) {
+        context.push(scope != null ? scope : new SymbolTable(context.getTop()));
     }
 
     @Override
@@ -70,28 +72,22 @@ public class TypeChecker extends Visitor<Void> {
         //check the case in which return object is a struct
 
         if(funcRetType instanceof StructType) {
-            String stName = StructSymbolTableItem.START_KEY + ((StructType) funcRetType).getStructName().getName();
-
-            try{
-                SymbolTable.root.getItem(stName);
-            }
-            catch (ItemNotFoundException e){
+            if (findSSTI(((StructType) funcRetType).getStructName()) == null) {
                 StructNotDeclared error = new StructNotDeclared(functionDec.getLine(), ((StructType) funcRetType).getStructName().getName());
                 functionDec.addError(error);
             }
         }
 
 
-        currentFunction = findFSTI(functionDec.getFunctionName().getName());
-        SymbolTable funcSymbolTable = new SymbolTable(SymbolTable.root);
-        currentFunction.setFunctionSymbolTable(funcSymbolTable);
-        SymbolTable.push(funcSymbolTable);
+        currentFunction = findFSTI(functionDec.getFunctionName());
+        pushScope(functionDec.getScope());
+        currentFunction.setFunctionSymbolTable(context.getTop());
         expressionTypeChecker.setCurrentFunction(currentFunction);
         for(VariableDeclaration arg: functionDec.getArgs()){
             arg.accept(this);
         }
         functionDec.getBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
         currentFunction = null;
         expressionTypeChecker.setCurrentFunction(currentFunction);
         return null;
@@ -100,7 +96,9 @@ public class TypeChecker extends Visitor<Void> {
     @Override
     public Void visit(MainDeclaration mainDec) {
         checkMain = true;
+        pushScope(mainDec.getScope());
         mainDec.getBody().accept(this);
+        context.pop();
         checkMain = false;
         return null;
     }
@@ -108,7 +106,7 @@ public class TypeChecker extends Visitor<Void> {
     @Override
     public Void visit(VariableDeclaration variableDec) {
 
-        Type varNameType = variableDec.getVarType();
+        Type varNameType = TypeFactory.intern(variableDec.getVarType());
         Type valueType = null;
 
         //check if it's null and then visit with expressionTypeChecker
@@ -123,37 +121,34 @@ public class TypeChecker extends Visitor<Void> {
 
         //the case in which we're dealing with struct.
         if (varNameType instanceof StructType) {
-            try {
-                String stName = ((StructType) variableDec.getVarType()).getStructName().getName();
-                String stFullName = StructSymbolTableItem.START_KEY + stName;
-
-                SymbolTable.root.getItem(stFullName);
-            } catch (ItemNotFoundException e) {
+            if (findSSTI(((StructType) variableDec.getVarType()).getStructName()) == null) {
                 StructNotDeclared error = new StructNotDeclared(variableDec.getLine(), ((StructType) variableDec.getVarType()).getStructName().getName());
                 variableDec.addError(error);
-                varNameType = new NoType();
+                varNameType = TypeFactory.NO_TYPE;
             }
         }
-        try {
-            VariableSymbolTableItem newVariableSymbolTable = new VariableSymbolTableItem(variableDec.getVarName());
-            newVariableSymbolTable.setType(varNameType);
-            SymbolTable.top.put(newVariableSymbolTable);
-        } catch (ItemAlreadyExistsException e1) {
+        //NameAnalyser has usually put the variable in this scope already, then only its type is set
+        VariableSymbolTableItem variableSymbolTable = (VariableSymbolTableItem) context.getTop().findItem(Namespace.VARIABLE, variableDec.getVarName().getNameId());
+        if (variableSymbolTable != null)
+            variableSymbolTable.setType(varNameType);
+        else {
             try {
-                VariableSymbolTableItem variableSymbolTable = (VariableSymbolTableItem) SymbolTable.top.getItem(VariableSymbolTableItem.START_KEY + variableDec.getVarName().getName());
-                variableSymbolTable.setType(varNameType);
-            } catch (ItemNotFoundException e2) {}
+                VariableSymbolTableItem newVariableSymbolTable = new VariableSymbolTableItem(variableDec.getVarName());
+                newVariableSymbolTable.setType(varNameType);
+                context.getTop().put(newVariableSymbolTable);
+            } catch (ItemAlreadyExistsException e1) { //unreachable
+            }
         }
         return  null;
     }
 
     @Override
     public Void visit(StructDeclaration structDec) {
-        currentStruct = findSSTI(structDec.getStructName().getName());
+        currentStruct = findSSTI(structDec.getStructName());
         expressionTypeChecker.setCurrentStruct(currentStruct);
-        SymbolTable.push(currentStruct.getStructSymbolTable());
+        context.push(currentStruct.getStructSymbolTable());
         structDec.getBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
         expressionTypeChecker.setCurrentStruct(currentStruct);
         return null;
     }
@@ -161,17 +156,21 @@ public class TypeChecker extends Visitor<Void> {
     @Override
     public Void visit(SetGetVarDeclaration setGetVarDec) {
 
+        //gives the property variable registered by NameAnalyser its type
+        setGetVarDec.getVarDec().accept(this);
+
         checkSetter = true;
 
-        SymbolTable currentTable = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(currentTable);
+        //the setter's scope, which NameAnalyser filled with its arguments
+        FunctionSymbolTableItem property = (FunctionSymbolTableItem) context.getTop().findItem(Namespace.FUNCTION, setGetVarDec.getVarName().getNameId());
+        pushScope(property != null ? property.getFunctionSymbolTable() : null);
 
         for (VariableDeclaration declaration : setGetVarDec.getArgs()) {
             declaration.accept(this);
         }
 
         setGetVarDec.getSetterBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
         checkSetter = false;
 
         checkGetter = true;
@@ -206,10 +205,10 @@ public class TypeChecker extends Visitor<Void> {
                 UnsupportedOperandType error = new UnsupportedOperandType(lxp.getLine(), BinaryOperator.assign.name());
                 assignmentStmt.addError(error);
             }
-            else{
-                LeftSideNotLvalue error = new LeftSideNotLvalue(assignmentStmt.getLine());
-                assignmentStmt.addError(error);
-            }
+        }
+        else{
+            LeftSideNotLvalue error = new LeftSideNotLvalue(assignmentStmt.getLine());
+            assignmentStmt.addError(error);
         }
         return null;
     }
@@ -234,19 +233,17 @@ public class TypeChecker extends Visitor<Void> {
         }
 
         //add scope and visit then body
-        SymbolTable currentScope = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(currentScope);
+        pushScope(conditionalStmt.getThenScope());
         conditionalStmt.getThenBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
 
 
 
         //add scope and visit else body
         if(conditionalStmt.getElseBody() != null) {
-            SymbolTable outerScope = new SymbolTable(SymbolTable.top);
-            SymbolTable.push(outerScope);
+            pushScope(conditionalStmt.getElseScope());
             conditionalStmt.getElseBody().accept(this);
-            SymbolTable.pop();
+            context.pop();
         }
         return null;
     }
@@ -281,7 +278,9 @@ public class TypeChecker extends Visitor<Void> {
     @Override
     public Void visit(ReturnStmt returnStmt) {
 
-        Type returnType = returnStmt.getReturnedExpr().accept(expressionTypeChecker);
+        //a bare return returns void
+        Type returnType = returnStmt.getReturnedExpr() == null ? TypeFactory.VOID
+                : returnStmt.getReturnedExpr().accept(expressionTypeChecker);
 
         if (currentFunction != null) {
             if (!expressionTypeChecker.checkSpecialTypeEquality(currentFunction.getReturnType(), returnType)) {
@@ -323,10 +322,9 @@ public class TypeChecker extends Visitor<Void> {
             loopStmt.addError(exception);
         }
         //assign type to symbol table variables
-        SymbolTable currentScope = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(currentScope);
+        pushScope(loopStmt.getScope());
         loopStmt.getBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
         return null;
     }
 
@@ -354,7 +352,7 @@ public class TypeChecker extends Visitor<Void> {
 
     @Override
     public Void visit(ListSizeStmt listSizeStmt) {
-        listSizeStmt.getListSizeExpr().accept(this);
+        listSizeStmt.getListSizeExpr().accept(expressionTypeChecker);
         return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package main.visitor.type;
+
+import main.ast.types.FptrType;
+import main.ast.types.ListType;
+import main.ast.types.NoType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.TypeFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//The relation behind ExpressionTypeChecker.checkSpecialTypeEquality: NoType is compatible
+//with every type, and otherwise types are compatible when they have the same structure, with
+//lists compared by element type, fptrs by return and argument types and structs by name.
+//Types are interned first (see TypeFactory), so equal types are one object and unequal
+//primitives and structs differ at once; only pairs of distinct list or fptr types need a
+//walk of their structure, and its result is kept in an open addressing table keyed by the
+//ids of both types. Not thread-safe; each checker has its own.
+public class TypeCompatibility {
+    private static final long EMPTY = -1;
+
+    private long[] keys = new long[64];
+    private boolean[] compatible = new boolean[64];
+    private int size = 0;
+
+    public TypeCompatibility() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public boolean isCompatible(Type t1, Type t2) {
+        t1 = TypeFactory.intern(t1);
+        t2 = TypeFactory.intern(t2);
+        if (t1 == t2 || t1 instanceof NoType || t2 instanceof NoType)
+            return true;
+        boolean lists = t1 instanceof ListType && t2 instanceof ListType;
+        boolean fptrs = t1 instanceof FptrType && t2 instanceof FptrType;
+        if (!lists && !fptrs)
+            return false; //distinct primitives or structs, or different kinds of type
+
+        long key = ((long) TypeFactory.idOf(t1) << 32) | TypeFactory.idOf(t2);
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        for (; keys[slot] != EMPTY; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return compatible[slot];
+        boolean result = lists ? isCompatible(((ListType) t1).getType(), ((ListType) t2).getType())
+                : areCompatible((FptrType) t1, (FptrType) t2);
+        put(key, result);
+        return result;
+    }
+
+    private boolean areCompatible(FptrType f1, FptrType f2) {
+        if (!isCompatible(f1.getReturnType(), f2.getReturnType()))
+            return false;
+        ArrayList<Type> f1Arguments = f1.getArgsType();
+        ArrayList<Type> f2Arguments = f2.getArgsType();
+        if (f1Arguments.size() != f2Arguments.size())
+            return false;
+        for (int index = 0; index < f1Arguments.size(); index++)
+            if (!isCompatible(f1Arguments.get(index), f2Arguments.get(index)))
+                return false;
+        return true;
+    }
+
+    private static int slotOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    //the recursion above may have grown the table, so the slot is found again
+    private void put(long key, boolean result) {
+        if ((size + 1) * 2 > keys.length)
+            grow();
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        if (keys[slot] == EMPTY)
+            size += 1;
+        keys[slot] = key;
+        compatible[slot] = result;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        boolean[] oldCompatible = compatible;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        compatible = new boolean[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY)
+                continue;
+            int slot = slotOf(oldKeys[i], mask);
+            while (keys[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            compatible[slot] = oldCompatible[i];
+        }
+    }
+
+    //pairs of list or fptr types whose compatibility is known
+    public int size() {
+        return size;
+    }
+}
@@ -1951,22 +1951,28 @@ public class CmmParser extends Parser {
 		public ConditionalStmt ifStatementRet;
 		public Token cond;
 		public ExpressionContext exp;
-		public LoopCondBodyContext body1;
-		public BodyContext body2;
-		public ElseStatementContext elsest;
+		public BlockStatementContext b;
+		public ElseStatementContext elsest1;
+		public SingleStatementContext s;
+		public ElseStatementContext elsest2;
 		public TerminalNode IF() { return getToken(CmmParser.IF, 0); }
 		public ExpressionContext expression() {
 			return getRuleContext(ExpressionContext.class,0);
 		}
-		public LoopCondBodyContext loopCondBody() {
-			return getRuleContext(LoopCondBodyContext.class,0);
+		public BlockStatementContext blockStatement() {
+			return getRuleContext(BlockStatementContext.class,0);
 		}
-		public BodyContext body() {
-			return getRuleContext(BodyContext.class,0);
+		public SingleStatementContext singleStatement() {
+			return getRuleContext(SingleStatementContext.class,0);
+		}
+		public List<TerminalNode> NEWLINE() { return getTokens(CmmParser.NEWLINE); }
+		public TerminalNode NEWLINE(int i) {
+			return getToken(CmmParser.NEWLINE, i);
 		}
 		public ElseStatementContext elseStatement() {
 			return getRuleContext(ElseStatementContext.class,0);
 		}
+		public TerminalNode SEMICOLON() { return getToken(CmmParser.SEMICOLON, 0); }
 		public IfStatementContext(ParserRuleContext parent, int invokingState) {
 			super(parent, invokingState);
 		}
@@ -1989,6 +1995,7 @@ public class CmmParser extends Parser {
 	public final IfStatementContext ifStatement() throws RecognitionException {
 		IfStatementContext _localctx = new IfStatementContext(_ctx, getState());
 		enterRule(_localctx, 36, RULE_ifStatement);
+		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
@@ -1998,26 +2005,71 @@ public class CmmParser extends Parser {
 			((IfStatementContext)_localctx).exp = expression();
 			((IfStatementContext)_localctx).ifStatementRet =  new ConditionalStmt(((IfStatementContext)_localctx).exp.exprRet);
 			     _localctx.ifStatementRet.setLine(((IfStatementContext)_localctx).cond.getLine());
-			setState(406);
+			setState(420);
 			_errHandler.sync(this);
-			switch ( getInterpreter().adaptivePredict(_input,39,_ctx) ) {
-			case 1:
+			switch (_input.LA(1)) {
+			case BEGIN:
 				{
 				setState(398);
-				((IfStatementContext)_localctx).body1 = loopCondBody();
-				_localctx.ifStatementRet.setThenBody(((IfStatementContext)_localctx).body1.stmtRet);
+				((IfStatementContext)_localctx).b = blockStatement();
+				_localctx.ifStatementRet.setThenBody(((IfStatementContext)_localctx).b.blockStatementRet);
+				setState(403);
+				_errHandler.sync(this);
+				switch ( getInterpreter().adaptivePredict(_input,39,_ctx) ) {
+				case 1:
+					{
+					setState(400);
+					((IfStatementContext)_localctx).elsest1 = elseStatement();
+					_localctx.ifStatementRet.setElseBody(((IfStatementContext)_localctx).elsest1.stmt);
+					}
+					break;
+				}
 				}
 				break;
-			case 2:
+			case NEWLINE:
 				{
-				setState(401);
-				((IfStatementContext)_localctx).body2 = body();
-				_localctx.ifStatementRet.setThenBody(((IfStatementContext)_localctx).body2.bodyRet);
-				setState(403);
-				((IfStatementContext)_localctx).elsest = elseStatement();
-				_localctx.ifStatementRet.setElseBody(((IfStatementContext)_localctx).elsest.stmt);
+				setState(406); 
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+				do {
+					{
+					{
+					setState(405);
+					match(NEWLINE);
+					}
+					}
+					setState(408); 
+					_errHandler.sync(this);
+					_la = _input.LA(1);
+				} while ( _la==NEWLINE );
+				setState(410);
+				((IfStatementContext)_localctx).s = singleStatement();
+				_localctx.ifStatementRet.setThenBody(((IfStatementContext)_localctx).s.singleStatementRet);
+				setState(418);
+				_errHandler.sync(this);
+				switch ( getInterpreter().adaptivePredict(_input,42,_ctx) ) {
+				case 1:
+					{
+					setState(413);
+					_errHandler.sync(this);
+					_la = _input.LA(1);
+					if (_la==SEMICOLON) {
+						{
+						setState(412);
+						match(SEMICOLON);
+						}
+					}
+
+					setState(415);
+					((IfStatementContext)_localctx).elsest2 = elseStatement();
+					_localctx.ifStatementRet.setElseBody(((IfStatementContext)_localctx).elsest2.stmt);
+					}
+					break;
+				}
 				}
 				break;
+			default:
+				throw new NoViableAltException(this);
 			}
 			}
 		}
@@ -2069,23 +2121,23 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(411);
+			setState(425);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==NEWLINE) {
 				{
 				{
-				setState(408);
+				setState(422);
 				match(NEWLINE);
 				}
 				}
-				setState(413);
+				setState(427);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(414);
+			setState(428);
 			match(ELSE);
-			setState(415);
+			setState(429);
 			((ElseStatementContext)_localctx).bd = loopCondBody();
 			((ElseStatementContext)_localctx).stmt =  ((ElseStatementContext)_localctx).bd.stmtRet;
 			}
@@ -2134,13 +2186,13 @@ public class CmmParser extends Parser {
 		LoopStatementContext _localctx = new LoopStatementContext(_ctx, getState());
 		enterRule(_localctx, 40, RULE_loopStatement);
 		try {
-			setState(424);
+			setState(438);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case WHILE:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(418);
+				setState(432);
 				((LoopStatementContext)_localctx).st1 = whileLoopStatement();
 				((LoopStatementContext)_localctx).loopStatementRet =  ((LoopStatementContext)_localctx).st1.stmt;
 				}
@@ -2148,7 +2200,7 @@ public class CmmParser extends Parser {
 			case DO:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(421);
+				setState(435);
 				((LoopStatementContext)_localctx).st2 = doWhileLoopStatement();
 				((LoopStatementContext)_localctx).loopStatementRet =  ((LoopStatementContext)_localctx).st2.stmt;
 				}
@@ -2206,13 +2258,13 @@ public class CmmParser extends Parser {
 			enterOuterAlt(_localctx, 1);
 			{
 			((WhileLoopStatementContext)_localctx).stmt =  new LoopStmt();
-			setState(427);
+			setState(441);
 			((WhileLoopStatementContext)_localctx).w = match(WHILE);
-			setState(428);
+			setState(442);
 			((WhileLoopStatementContext)_localctx).exp = expression();
 			_localctx.stmt.setCondition(((WhileLoopStatementContext)_localctx).exp.exprRet);
 			     _localctx.stmt.setLine(((WhileLoopStatementContext)_localctx).w.getLine());
-			setState(430);
+			setState(444);
 			((WhileLoopStatementContext)_localctx).bd = loopCondBody();
 			_localctx.stmt.setBody(((WhileLoopStatementContext)_localctx).bd.stmtRet);
 			}
@@ -2272,29 +2324,29 @@ public class CmmParser extends Parser {
 			enterOuterAlt(_localctx, 1);
 			{
 			((DoWhileLoopStatementContext)_localctx).stmt =  new LoopStmt();
-			setState(434);
+			setState(448);
 			((DoWhileLoopStatementContext)_localctx).d = match(DO);
-			setState(435);
+			setState(449);
 			((DoWhileLoopStatementContext)_localctx).bd = body();
 			_localctx.stmt.setBody(((DoWhileLoopStatementContext)_localctx).bd.bodyRet);
 			     _localctx.stmt.setLine(((DoWhileLoopStatementContext)_localctx).d.getLine());
-			setState(440);
+			setState(454);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==NEWLINE) {
 				{
 				{
-				setState(437);
+				setState(451);
 				match(NEWLINE);
 				}
 				}
-				setState(442);
+				setState(456);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(443);
+			setState(457);
 			match(WHILE);
-			setState(444);
+			setState(458);
 			((DoWhileLoopStatementContext)_localctx).exp = expression();
 			_localctx.stmt.setCondition(((DoWhileLoopStatementContext)_localctx).exp.exprRet);
 			}
@@ -2345,15 +2397,15 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(447);
+			setState(461);
 			((DisplayStatementContext)_localctx).dis = match(DISPLAY);
-			setState(448);
+			setState(462);
 			match(LPAR);
-			setState(449);
+			setState(463);
 			((DisplayStatementContext)_localctx).exp = expression();
 			((DisplayStatementContext)_localctx).displayStatementRet =  new DisplayStmt(((DisplayStatementContext)_localctx).exp.exprRet);
 			   _localctx.displayStatementRet.setLine(((DisplayStatementContext)_localctx).dis.getLine());
-			setState(451);
+			setState(465);
 			match(RPAR);
 			}
 		}
@@ -2405,11 +2457,11 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(453);
+			setState(467);
 			((AssignmentStatementContext)_localctx).left = orExpression();
-			setState(454);
+			setState(468);
 			((AssignmentStatementContext)_localctx).a = match(ASSIGN);
-			setState(455);
+			setState(469);
 			((AssignmentStatementContext)_localctx).right = expression();
 			((AssignmentStatementContext)_localctx).assignmentStatementRet =  new AssignmentStmt(((AssignmentStatementContext)_localctx).left.orExprRet, ((AssignmentStatementContext)_localctx).right.exprRet);
 			     _localctx.assignmentStatementRet.setLine(((AssignmentStatementContext)_localctx).a.getLine());
@@ -2487,13 +2539,13 @@ public class CmmParser extends Parser {
 		SingleStatementContext _localctx = new SingleStatementContext(_ctx, getState());
 		enterRule(_localctx, 50, RULE_singleStatement);
 		try {
-			setState(485);
+			setState(499);
 			_errHandler.sync(this);
-			switch ( getInterpreter().adaptivePredict(_input,43,_ctx) ) {
+			switch ( getInterpreter().adaptivePredict(_input,47,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(458);
+				setState(472);
 				((SingleStatementContext)_localctx).i = ifStatement();
 				((SingleStatementContext)_localctx).singleStatementRet =  ((SingleStatementContext)_localctx).i.ifStatementRet;
 				}
@@ -2501,7 +2553,7 @@ public class CmmParser extends Parser {
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(461);
+				setState(475);
 				((SingleStatementContext)_localctx).d = displayStatement();
 				((SingleStatementContext)_localctx).singleStatementRet =  ((SingleStatementContext)_localctx).d.displayStatementRet;
 				}
@@ -2509,7 +2561,7 @@ public class CmmParser extends Parser {
 			case 3:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(464);
+				setState(478);
 				((SingleStatementContext)_localctx).f = functionCallStmt();
 				((SingleStatementContext)_localctx).singleStatementRet =  ((SingleStatementContext)_localctx).f.functionCallStmtRet;
 				}
@@ -2517,7 +2569,7 @@ public class CmmParser extends Parser {
 			case 4:
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(467);
+				setState(481);
 				((SingleStatementContext)_localctx).r = returnStatement();
 				((SingleStatementContext)_localctx).singleStatementRet =  ((SingleStatementContext)_localctx).r.returnStatementRet;
 				}
@@ -2525,7 +2577,7 @@ public class CmmParser extends Parser {
 			case 5:
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(470);
+				setState(484);
 				((SingleStatementContext)_localctx).a = assignmentStatement();
 				((SingleStatementContext)_localctx).singleStatementRet =  ((SingleStatementContext)_localctx).a.assignmentStatementRet;
 				}
@@ -2533,7 +2585,7 @@ public class CmmParser extends Parser {
 			case 6:
 				enterOuterAlt(_localctx, 6);
 				{
-				setState(473);
+				setState(487);
 				((SingleStatementContext)_localctx).v = varDecStatement();
 				((SingleStatementContext)_localctx).singleStatementRet =  ((SingleStatementContext)_localctx).v.varDecStatementRet;
 				}
@@ -2541,7 +2593,7 @@ public class CmmParser extends Parser {
 			case 7:
 				enterOuterAlt(_localctx, 7);
 				{
-				setState(476);
+				setState(490);
 				((SingleStatementContext)_localctx).l = loopStatement();
 				((SingleStatementContext)_localctx).singleStatementRet =  ((SingleStatementContext)_localctx).l.loopStatementRet;
 				}
@@ -2549,7 +2601,7 @@ public class CmmParser extends Parser {
 			case 8:
 				enterOuterAlt(_localctx, 8);
 				{
-				setState(479);
+				setState(493);
 				((SingleStatementContext)_localctx).ap = append();
 				ListAppendStmt listAppend = new ListAppendStmt(((SingleStatementContext)_localctx).ap.appendRet);
 				     listAppend.setLine(((SingleStatementContext)_localctx).ap.line);
@@ -2559,7 +2611,7 @@ public class CmmParser extends Parser {
 			case 9:
 				enterOuterAlt(_localctx, 9);
 				{
-				setState(482);
+				setState(496);
 				((SingleStatementContext)_localctx).s = size();
 				ListSizeStmt listSize = new ListSizeStmt(((SingleStatementContext)_localctx).s.sizeRet);
 				     listSize.setLine(((SingleStatementContext)_localctx).s.line);
@@ -2617,17 +2669,17 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(487);
+			setState(501);
 			((ExpressionContext)_localctx).expl = orExpression();
 			((ExpressionContext)_localctx).exprRet =  ((ExpressionContext)_localctx).expl.orExprRet;
-			setState(493);
+			setState(507);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==ASSIGN) {
 				{
-				setState(489);
+				setState(503);
 				((ExpressionContext)_localctx).op = match(ASSIGN);
-				setState(490);
+				setState(504);
 				((ExpressionContext)_localctx).expr = expression();
 
 				        BinaryOperator opr = BinaryOperator.assign;
@@ -2691,18 +2743,18 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(495);
+			setState(509);
 			((OrExpressionContext)_localctx).expl = andExpression();
 			((OrExpressionContext)_localctx).orExprRet =  ((OrExpressionContext)_localctx).expl.andExprRet;
-			setState(503);
+			setState(517);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==OR) {
 				{
 				{
-				setState(497);
+				setState(511);
 				((OrExpressionContext)_localctx).op = match(OR);
-				setState(498);
+				setState(512);
 				((OrExpressionContext)_localctx).expr = andExpression();
 
 				        BinaryOperator opr = BinaryOperator.or;
@@ -2711,7 +2763,7 @@ public class CmmParser extends Parser {
 				    
 				}
 				}
-				setState(505);
+				setState(519);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -2769,18 +2821,18 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(506);
+			setState(520);
 			((AndExpressionContext)_localctx).expl = equalityExpression();
 			((AndExpressionContext)_localctx).andExprRet =  ((AndExpressionContext)_localctx).expl.equalityExprRet;
-			setState(514);
+			setState(528);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==AND) {
 				{
 				{
-				setState(508);
+				setState(522);
 				((AndExpressionContext)_localctx).op = match(AND);
-				setState(509);
+				setState(523);
 				((AndExpressionContext)_localctx).expr = equalityExpression();
 
 				        BinaryOperator opr = BinaryOperator.and;
@@ -2789,7 +2841,7 @@ public class CmmParser extends Parser {
 				    
 				}
 				}
-				setState(516);
+				setState(530);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -2847,18 +2899,18 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(517);
+			setState(531);
 			((EqualityExpressionContext)_localctx).expl = relationalExpression();
 			((EqualityExpressionContext)_localctx).equalityExprRet =  ((EqualityExpressionContext)_localctx).expl.relationalExprRet;
-			setState(525);
+			setState(539);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==EQUAL) {
 				{
 				{
-				setState(519);
+				setState(533);
 				((EqualityExpressionContext)_localctx).op = match(EQUAL);
-				setState(520);
+				setState(534);
 				((EqualityExpressionContext)_localctx).expr = relationalExpression();
 
 				        BinaryOperator opr = BinaryOperator.eq;
@@ -2867,7 +2919,7 @@ public class CmmParser extends Parser {
 				    
 				}
 				}
-				setState(527);
+				setState(541);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -2932,21 +2984,21 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(528);
+			setState(542);
 			((RelationalExpressionContext)_localctx).l = additiveExpression();
 			((RelationalExpressionContext)_localctx).relationalExprRet =  ((RelationalExpressionContext)_localctx).l.expr;
-			setState(541);
+			setState(555);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==GREATER_THAN || _la==LESS_THAN) {
 				{
 				{
-				setState(534);
+				setState(548);
 				_errHandler.sync(this);
 				switch (_input.LA(1)) {
 				case GREATER_THAN:
 					{
-					setState(530);
+					setState(544);
 					((RelationalExpressionContext)_localctx).op1 = match(GREATER_THAN);
 					((RelationalExpressionContext)_localctx).op =  BinaryOperator.gt;
 					    ((RelationalExpressionContext)_localctx).line =  ((RelationalExpressionContext)_localctx).op1.getLine();
@@ -2954,7 +3006,7 @@ public class CmmParser extends Parser {
 					break;
 				case LESS_THAN:
 					{
-					setState(532);
+					setState(546);
 					((RelationalExpressionContext)_localctx).op2 = match(LESS_THAN);
 					((RelationalExpressionContext)_localctx).op =  BinaryOperator.lt;
 					     ((RelationalExpressionContext)_localctx).line =  ((RelationalExpressionContext)_localctx).op2.getLine();
@@ -2963,13 +3015,13 @@ public class CmmParser extends Parser {
 				default:
 					throw new NoViableAltException(this);
 				}
-				setState(536);
+				setState(550);
 				((RelationalExpressionContext)_localctx).r = additiveExpression();
 				((RelationalExpressionContext)_localctx).relationalExprRet =  new BinaryExpression(_localctx.relationalExprRet,((RelationalExpressionContext)_localctx).r.expr,_localctx.op);
 				     _localctx.relationalExprRet.setLine(_localctx.line);
 				}
 				}
-				setState(543);
+				setState(557);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -3034,21 +3086,21 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(544);
+			setState(558);
 			((AdditiveExpressionContext)_localctx).l = multiplicativeExpression();
 			((AdditiveExpressionContext)_localctx).expr =  ((AdditiveExpressionContext)_localctx).l.expr;
-			setState(557);
+			setState(571);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==PLUS || _la==MINUS) {
 				{
 				{
-				setState(550);
+				setState(564);
 				_errHandler.sync(this);
 				switch (_input.LA(1)) {
 				case PLUS:
 					{
-					setState(546);
+					setState(560);
 					((AdditiveExpressionContext)_localctx).op1 = match(PLUS);
 					((AdditiveExpressionContext)_localctx).op =  BinaryOperator.add;
 					     ((AdditiveExpressionContext)_localctx).line =  ((AdditiveExpressionContext)_localctx).op1.getLine();
@@ -3056,7 +3108,7 @@ public class CmmParser extends Parser {
 					break;
 				case MINUS:
 					{
-					setState(548);
+					setState(562);
 					((AdditiveExpressionContext)_localctx).op2 = match(MINUS);
 					((AdditiveExpressionContext)_localctx).op =  BinaryOperator.sub;
 					     ((AdditiveExpressionContext)_localctx).line =  ((AdditiveExpressionContext)_localctx).op2.getLine();
@@ -3065,13 +3117,13 @@ public class CmmParser extends Parser {
 				default:
 					throw new NoViableAltException(this);
 				}
-				setState(552);
+				setState(566);
 				((AdditiveExpressionContext)_localctx).r = multiplicativeExpression();
 				((AdditiveExpressionContext)_localctx).expr =  new BinaryExpression(_localctx.expr,((AdditiveExpressionContext)_localctx).r.expr,_localctx.op);
 				     _localctx.expr.setLine(_localctx.line);
 				}
 				}
-				setState(559);
+				setState(573);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -3136,21 +3188,21 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(560);
+			setState(574);
 			((MultiplicativeExpressionContext)_localctx).l = preUnaryExpression();
 			((MultiplicativeExpressionContext)_localctx).expr =  ((MultiplicativeExpressionContext)_localctx).l.expr;
-			setState(573);
+			setState(587);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==MULT || _la==DIVIDE) {
 				{
 				{
-				setState(566);
+				setState(580);
 				_errHandler.sync(this);
 				switch (_input.LA(1)) {
 				case MULT:
 					{
-					setState(562);
+					setState(576);
 					((MultiplicativeExpressionContext)_localctx).op1 = match(MULT);
 					((MultiplicativeExpressionContext)_localctx).op =  BinaryOperator.mult;
 					     ((MultiplicativeExpressionContext)_localctx).line =  ((MultiplicativeExpressionContext)_localctx).op1.getLine();
@@ -3158,7 +3210,7 @@ public class CmmParser extends Parser {
 					break;
 				case DIVIDE:
 					{
-					setState(564);
+					setState(578);
 					((MultiplicativeExpressionContext)_localctx).op2 = match(DIVIDE);
 					((MultiplicativeExpressionContext)_localctx).op =  BinaryOperator.div;
 					     ((MultiplicativeExpressionContext)_localctx).line =  ((MultiplicativeExpressionContext)_localctx).op2.getLine();
@@ -3167,13 +3219,13 @@ public class CmmParser extends Parser {
 				default:
 					throw new NoViableAltException(this);
 				}
-				setState(568);
+				setState(582);
 				((MultiplicativeExpressionContext)_localctx).r = preUnaryExpression();
 				((MultiplicativeExpressionContext)_localctx).expr =  new BinaryExpression(_localctx.expr,((MultiplicativeExpressionContext)_localctx).r.expr,_localctx.op);
 				    _localctx.expr.setLine(_localctx.line);
 				}
 				}
-				setState(575);
+				setState(589);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -3229,7 +3281,7 @@ public class CmmParser extends Parser {
 		PreUnaryExpressionContext _localctx = new PreUnaryExpressionContext(_ctx, getState());
 		enterRule(_localctx, 66, RULE_preUnaryExpression);
 		try {
-			setState(588);
+			setState(602);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case MINUS:
@@ -3237,12 +3289,12 @@ public class CmmParser extends Parser {
 				enterOuterAlt(_localctx, 1);
 				{
 				{
-				setState(580);
+				setState(594);
 				_errHandler.sync(this);
 				switch (_input.LA(1)) {
 				case NOT:
 					{
-					setState(576);
+					setState(590);
 					((PreUnaryExpressionContext)_localctx).op1 = match(NOT);
 					((PreUnaryExpressionContext)_localctx).op =  UnaryOperator.not;
 					     ((PreUnaryExpressionContext)_localctx).line =  ((PreUnaryExpressionContext)_localctx).op1.getLine();
@@ -3250,7 +3302,7 @@ public class CmmParser extends Parser {
 					break;
 				case MINUS:
 					{
-					setState(578);
+					setState(592);
 					((PreUnaryExpressionContext)_localctx).op2 = match(MINUS);
 					((PreUnaryExpressionContext)_localctx).op =  UnaryOperator.minus;
 					     ((PreUnaryExpressionContext)_localctx).line =  ((PreUnaryExpressionContext)_localctx).op2.getLine();
@@ -3259,7 +3311,7 @@ public class CmmParser extends Parser {
 				default:
 					throw new NoViableAltException(this);
 				}
-				setState(582);
+				setState(596);
 				((PreUnaryExpressionContext)_localctx).pre = preUnaryExpression();
 				((PreUnaryExpressionContext)_localctx).expr =  new UnaryExpression(((PreUnaryExpressionContext)_localctx).pre.expr, _localctx.op);
 				     _localctx.expr.setLine(_localctx.line);
@@ -3275,7 +3327,7 @@ public class CmmParser extends Parser {
 			case IDENTIFIER:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(585);
+				setState(599);
 				((PreUnaryExpressionContext)_localctx).ac = accessExpression();
 				((PreUnaryExpressionContext)_localctx).expr =  ((PreUnaryExpressionContext)_localctx).ac.expr;
 				}
@@ -3370,28 +3422,28 @@ public class CmmParser extends Parser {
 			int _alt;
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(590);
+			setState(604);
 			((AccessExpressionContext)_localctx).oth = otherExpression();
 			((AccessExpressionContext)_localctx).expr =  ((AccessExpressionContext)_localctx).oth.expr;
-			setState(603);
+			setState(617);
 			_errHandler.sync(this);
-			_alt = getInterpreter().adaptivePredict(_input,57,_ctx);
+			_alt = getInterpreter().adaptivePredict(_input,61,_ctx);
 			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
 				if ( _alt==1 ) {
 					{
-					setState(601);
+					setState(615);
 					_errHandler.sync(this);
 					switch (_input.LA(1)) {
 					case LPAR:
 						{
 						{
-						setState(592);
+						setState(606);
 						((AccessExpressionContext)_localctx).l = match(LPAR);
-						setState(593);
+						setState(607);
 						((AccessExpressionContext)_localctx).f = functionArguments();
 						((AccessExpressionContext)_localctx).expr =  new FunctionCall(_localctx.expr, ((AccessExpressionContext)_localctx).f.funcArgRet);
 						     _localctx.expr.setLine(((AccessExpressionContext)_localctx).l.getLine());
-						setState(595);
+						setState(609);
 						match(RPAR);
 						}
 						}
@@ -3399,9 +3451,9 @@ public class CmmParser extends Parser {
 					case DOT:
 						{
 						{
-						setState(597);
+						setState(611);
 						match(DOT);
-						setState(598);
+						setState(612);
 						((AccessExpressionContext)_localctx).i = identifier();
 						((AccessExpressionContext)_localctx).expr =  new StructAccess(_localctx.expr, ((AccessExpressionContext)_localctx).i.identifierRet);
 						     _localctx.expr.setLine(((AccessExpressionContext)_localctx).i.line);
@@ -3413,28 +3465,28 @@ public class CmmParser extends Parser {
 					}
 					} 
 				}
-				setState(605);
+				setState(619);
 				_errHandler.sync(this);
-				_alt = getInterpreter().adaptivePredict(_input,57,_ctx);
+				_alt = getInterpreter().adaptivePredict(_input,61,_ctx);
 			}
-			setState(617);
+			setState(631);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==LBRACK || _la==DOT) {
 				{
-				setState(615);
+				setState(629);
 				_errHandler.sync(this);
 				switch (_input.LA(1)) {
 				case LBRACK:
 					{
 					{
-					setState(606);
+					setState(620);
 					((AccessExpressionContext)_localctx).l = match(LBRACK);
-					setState(607);
+					setState(621);
 					((AccessExpressionContext)_localctx).ex = expression();
 					((AccessExpressionContext)_localctx).expr =  new ListAccessByIndex(_localctx.expr, ((AccessExpressionContext)_localctx).ex.exprRet);
 					     _localctx.expr.setLine(((AccessExpressionContext)_localctx).l.getLine());
-					setState(609);
+					setState(623);
 					match(RBRACK);
 					}
 					}
@@ -3442,9 +3494,9 @@ public class CmmParser extends Parser {
 				case DOT:
 					{
 					{
-					setState(611);
+					setState(625);
 					match(DOT);
-					setState(612);
+					setState(626);
 					((AccessExpressionContext)_localctx).i = identifier();
 					((AccessExpressionContext)_localctx).expr =  new StructAccess(_localctx.expr, ((AccessExpressionContext)_localctx).i.identifierRet);
 					     _localctx.expr.setLine(((AccessExpressionContext)_localctx).i.line);
@@ -3455,7 +3507,7 @@ public class CmmParser extends Parser {
 					throw new NoViableAltException(this);
 				}
 				}
-				setState(619);
+				setState(633);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -3520,7 +3572,7 @@ public class CmmParser extends Parser {
 		OtherExpressionContext _localctx = new OtherExpressionContext(_ctx, getState());
 		enterRule(_localctx, 70, RULE_otherExpression);
 		try {
-			setState(637);
+			setState(651);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case TRUE:
@@ -3528,7 +3580,7 @@ public class CmmParser extends Parser {
 			case INT_VALUE:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(620);
+				setState(634);
 				((OtherExpressionContext)_localctx).v = value();
 				((OtherExpressionContext)_localctx).expr =  ((OtherExpressionContext)_localctx).v.valueRet;
 				}
@@ -3536,7 +3588,7 @@ public class CmmParser extends Parser {
 			case IDENTIFIER:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(623);
+				setState(637);
 				((OtherExpressionContext)_localctx).id = identifier();
 				((OtherExpressionContext)_localctx).expr =  ((OtherExpressionContext)_localctx).id.identifierRet;
 				}
@@ -3544,13 +3596,13 @@ public class CmmParser extends Parser {
 			case LPAR:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(626);
+				setState(640);
 				((OtherExpressionContext)_localctx).l = match(LPAR);
 				{
-				setState(627);
+				setState(641);
 				((OtherExpressionContext)_localctx).f = functionArguments();
 				}
-				setState(628);
+				setState(642);
 				match(RPAR);
 				ExprInPar ex = new ExprInPar(((OtherExpressionContext)_localctx).f.funcArgRet);
 				     ex.setLine(((OtherExpressionContext)_localctx).l.getLine());
@@ -3560,7 +3612,7 @@ public class CmmParser extends Parser {
 			case SIZE:
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(631);
+				setState(645);
 				((OtherExpressionContext)_localctx).s = size();
 				((OtherExpressionContext)_localctx).expr =  ((OtherExpressionContext)_localctx).s.sizeRet;
 				}
@@ -3568,7 +3620,7 @@ public class CmmParser extends Parser {
 			case APPEND:
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(634);
+				setState(648);
 				((OtherExpressionContext)_localctx).ap = append();
 				((OtherExpressionContext)_localctx).expr =  ((OtherExpressionContext)_localctx).ap.appendRet;
 				}
@@ -3624,16 +3676,16 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(639);
+			setState(653);
 			((SizeContext)_localctx).s = match(SIZE);
-			setState(640);
+			setState(654);
 			match(LPAR);
-			setState(641);
+			setState(655);
 			((SizeContext)_localctx).ex = expression();
 			((SizeContext)_localctx).sizeRet =  new ListSize(((SizeContext)_localctx).ex.exprRet);
 			     _localctx.sizeRet.setLine(((SizeContext)_localctx).s.getLine());
 			     ((SizeContext)_localctx).line =  ((SizeContext)_localctx).s.getLine();
-			setState(643);
+			setState(657);
 			match(RPAR);
 			}
 		}
@@ -3689,17 +3741,17 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(645);
+			setState(659);
 			((AppendContext)_localctx).ap = match(APPEND);
-			setState(646);
+			setState(660);
 			match(LPAR);
-			setState(647);
+			setState(661);
 			((AppendContext)_localctx).ex1 = expression();
-			setState(648);
+			setState(662);
 			match(COMMA);
-			setState(649);
+			setState(663);
 			((AppendContext)_localctx).ex2 = expression();
-			setState(650);
+			setState(664);
 			match(RPAR);
 			((AppendContext)_localctx).appendRet =  new ListAppend(((AppendContext)_localctx).ex1.exprRet, ((AppendContext)_localctx).ex2.exprRet);
 			     _localctx.appendRet.setLine(((AppendContext)_localctx).ap.getLine());
@@ -3748,14 +3800,14 @@ public class CmmParser extends Parser {
 		ValueContext _localctx = new ValueContext(_ctx, getState());
 		enterRule(_localctx, 76, RULE_value);
 		try {
-			setState(658);
+			setState(672);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case TRUE:
 			case FALSE:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(653);
+				setState(667);
 				((ValueContext)_localctx).b = boolValue();
 				((ValueContext)_localctx).valueRet =  ((ValueContext)_localctx).b.boolValueRet;
 				}
@@ -3763,7 +3815,7 @@ public class CmmParser extends Parser {
 			case INT_VALUE:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(656);
+				setState(670);
 				((ValueContext)_localctx).iv = match(INT_VALUE);
 
 				    ((ValueContext)_localctx).valueRet =  new IntValue((((ValueContext)_localctx).iv!=null?Integer.valueOf(((ValueContext)_localctx).iv.getText()):0));
@@ -3814,13 +3866,13 @@ public class CmmParser extends Parser {
 		BoolValueContext _localctx = new BoolValueContext(_ctx, getState());
 		enterRule(_localctx, 78, RULE_boolValue);
 		try {
-			setState(664);
+			setState(678);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case TRUE:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(660);
+				setState(674);
 				((BoolValueContext)_localctx).t = match(TRUE);
 				((BoolValueContext)_localctx).boolValueRet =  new BoolValue(true);
 				     _localctx.boolValueRet.setLine(((BoolValueContext)_localctx).t.getLine());
@@ -3829,7 +3881,7 @@ public class CmmParser extends Parser {
 			case FALSE:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(662);
+				setState(676);
 				((BoolValueContext)_localctx).f = match(FALSE);
 				((BoolValueContext)_localctx).boolValueRet =  new BoolValue(false);
 				     _localctx.boolValueRet.setLine(((BoolValueContext)_localctx).f.getLine());
@@ -3880,7 +3932,7 @@ public class CmmParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(666);
+			setState(680);
 			((IdentifierContext)_localctx).id = match(IDENTIFIER);
 
 			    ((IdentifierContext)_localctx).identifierRet =  new Identifier((((IdentifierContext)_localctx).id!=null?((IdentifierContext)_localctx).id.getText():null));
@@ -3941,13 +3993,13 @@ public class CmmParser extends Parser {
 		TypeContext _localctx = new TypeContext(_ctx, getState());
 		enterRule(_localctx, 82, RULE_type);
 		try {
-			setState(685);
+			setState(699);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case INT:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(669);
+				setState(683);
 				match(INT);
 				((TypeContext)_localctx).typeRet =  new IntType();
 				}
@@ -3955,7 +4007,7 @@ public class CmmParser extends Parser {
 			case BOOL:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(671);
+				setState(685);
 				match(BOOL);
 				((TypeContext)_localctx).typeRet =  new BoolType();
 				}
@@ -3963,11 +4015,11 @@ public class CmmParser extends Parser {
 			case LIST:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(673);
+				setState(687);
 				match(LIST);
-				setState(674);
+				setState(688);
 				match(SHARP);
-				setState(675);
+				setState(689);
 				((TypeContext)_localctx).t = type();
 				((TypeContext)_localctx).typeRet =  new ListType(((TypeContext)_localctx).t.typeRet);
 				}
@@ -3975,9 +4027,9 @@ public class CmmParser extends Parser {
 			case STRUCT:
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(678);
+				setState(692);
 				match(STRUCT);
-				setState(679);
+				setState(693);
 				((TypeContext)_localctx).id = identifier();
 				((TypeContext)_localctx).typeRet =  new StructType(((TypeContext)_localctx).id.identifierRet);
 				}
@@ -3985,7 +4037,7 @@ public class CmmParser extends Parser {
 			case FPTR:
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(682);
+				setState(696);
 				((TypeContext)_localctx).f = fptrType();
 				((TypeContext)_localctx).typeRet =  ((TypeContext)_localctx).f.fptrTypeRet;
 				}
@@ -4055,16 +4107,16 @@ public class CmmParser extends Parser {
 			enterOuterAlt(_localctx, 1);
 			{
 			 ArrayList<Type> args = new ArrayList<>(); 
-			setState(688);
+			setState(702);
 			match(FPTR);
-			setState(689);
-			match(LESS_THAN);
 			setState(703);
+			match(LESS_THAN);
+			setState(717);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case VOID:
 				{
-				setState(690);
+				setState(704);
 				match(VOID);
 				 args.add(new VoidType()); 
 				}
@@ -4076,23 +4128,23 @@ public class CmmParser extends Parser {
 			case FPTR:
 				{
 				{
-				setState(692);
+				setState(706);
 				((FptrTypeContext)_localctx).t1 = type();
 				 args.add(((FptrTypeContext)_localctx).t1.typeRet); 
-				setState(700);
+				setState(714);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				while (_la==COMMA) {
 					{
 					{
-					setState(694);
+					setState(708);
 					match(COMMA);
-					setState(695);
+					setState(709);
 					((FptrTypeContext)_localctx).t2 = type();
 					 args.add(((FptrTypeContext)_localctx).t2.typeRet); 
 					}
 					}
-					setState(702);
+					setState(716);
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				}
@@ -4102,9 +4154,9 @@ public class CmmParser extends Parser {
 			default:
 				throw new NoViableAltException(this);
 			}
-			setState(705);
+			setState(719);
 			match(ARROW);
-			setState(711);
+			setState(725);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case INT:
@@ -4113,14 +4165,14 @@ public class CmmParser extends Parser {
 			case STRUCT:
 			case FPTR:
 				{
-				setState(706);
+				setState(720);
 				((FptrTypeContext)_localctx).t3 = type();
 				((FptrTypeContext)_localctx).fptrTypeRet =  new FptrType(args, ((FptrTypeContext)_localctx).t3.typeRet);
 				}
 				break;
 			case VOID:
 				{
-				setState(709);
+				setState(723);
 				match(VOID);
 				((FptrTypeContext)_localctx).fptrTypeRet =  new FptrType(args, new VoidType());
 				}
@@ -4128,7 +4180,7 @@ public class CmmParser extends Parser {
 			default:
 				throw new NoViableAltException(this);
 			}
-			setState(713);
+			setState(727);
 			match(GREATER_THAN);
 			}
 		}
@@ -4144,7 +4196,7 @@ public class CmmParser extends Parser {
 	}
 
 	public static final String _serializedATN =
-		"\3\u608b\ua72a\u8133\ub9ed\u417c\u3be7\u7786\u5964\3\60\u02ce\4\2\t\2"+
+		"\3\u608b\ua72a\u8133\ub9ed\u417c\u3be7\u7786\u5964\3\60\u02dc\4\2\t\2"+
 		"\4\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4\13"+
 		"\t\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22\t\22"+
 		"\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31\t\31"+
@@ -4175,236 +4227,242 @@ public class CmmParser extends Parser {
 		"\n\21\f\21\16\21\u016d\13\21\3\22\3\22\3\22\3\22\3\22\3\22\3\22\3\22\3"+
 		"\22\3\22\3\22\7\22\u017a\n\22\f\22\16\22\u017d\13\22\3\22\3\22\3\22\3"+
 		"\22\3\22\3\22\3\22\3\23\3\23\3\23\3\23\3\23\3\23\5\23\u018c\n\23\3\24"+
-		"\3\24\3\24\3\24\3\24\3\24\3\24\3\24\3\24\3\24\3\24\5\24\u0199\n\24\3\25"+
-		"\7\25\u019c\n\25\f\25\16\25\u019f\13\25\3\25\3\25\3\25\3\25\3\26\3\26"+
-		"\3\26\3\26\3\26\3\26\5\26\u01ab\n\26\3\27\3\27\3\27\3\27\3\27\3\27\3\27"+
-		"\3\30\3\30\3\30\3\30\3\30\7\30\u01b9\n\30\f\30\16\30\u01bc\13\30\3\30"+
-		"\3\30\3\30\3\30\3\31\3\31\3\31\3\31\3\31\3\31\3\32\3\32\3\32\3\32\3\32"+
-		"\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33"+
-		"\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\5\33"+
-		"\u01e8\n\33\3\34\3\34\3\34\3\34\3\34\3\34\5\34\u01f0\n\34\3\35\3\35\3"+
-		"\35\3\35\3\35\3\35\7\35\u01f8\n\35\f\35\16\35\u01fb\13\35\3\36\3\36\3"+
-		"\36\3\36\3\36\3\36\7\36\u0203\n\36\f\36\16\36\u0206\13\36\3\37\3\37\3"+
-		"\37\3\37\3\37\3\37\7\37\u020e\n\37\f\37\16\37\u0211\13\37\3 \3 \3 \3 "+
-		"\3 \3 \5 \u0219\n \3 \3 \3 \7 \u021e\n \f \16 \u0221\13 \3!\3!\3!\3!\3"+
-		"!\3!\5!\u0229\n!\3!\3!\3!\7!\u022e\n!\f!\16!\u0231\13!\3\"\3\"\3\"\3\""+
-		"\3\"\3\"\5\"\u0239\n\"\3\"\3\"\3\"\7\"\u023e\n\"\f\"\16\"\u0241\13\"\3"+
-		"#\3#\3#\3#\5#\u0247\n#\3#\3#\3#\3#\3#\3#\5#\u024f\n#\3$\3$\3$\3$\3$\3"+
-		"$\3$\3$\3$\3$\3$\7$\u025c\n$\f$\16$\u025f\13$\3$\3$\3$\3$\3$\3$\3$\3$"+
-		"\3$\7$\u026a\n$\f$\16$\u026d\13$\3%\3%\3%\3%\3%\3%\3%\3%\3%\3%\3%\3%\3"+
-		"%\3%\3%\3%\3%\5%\u0280\n%\3&\3&\3&\3&\3&\3&\3\'\3\'\3\'\3\'\3\'\3\'\3"+
-		"\'\3\'\3(\3(\3(\3(\3(\5(\u0295\n(\3)\3)\3)\3)\5)\u029b\n)\3*\3*\3*\3+"+
-		"\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\5+\u02b0\n+\3,\3,\3,\3,"+
-		"\3,\3,\3,\3,\3,\3,\3,\7,\u02bd\n,\f,\16,\u02c0\13,\5,\u02c2\n,\3,\3,\3"+
-		",\3,\3,\3,\5,\u02ca\n,\3,\3,\3,\2\2-\2\4\6\b\n\f\16\20\22\24\26\30\32"+
-		"\34\36 \"$&(*,.\60\62\64\668:<>@BDFHJLNPRTV\2\2\2\u02f2\2[\3\2\2\2\4h"+
-		"\3\2\2\2\6|\3\2\2\2\b\u0083\3\2\2\2\n\u00a2\3\2\2\2\f\u00ba\3\2\2\2\16"+
-		"\u00bc\3\2\2\2\20\u00d4\3\2\2\2\22\u00dc\3\2\2\2\24\u00e4\3\2\2\2\26\u00f5"+
-		"\3\2\2\2\30\u0108\3\2\2\2\32\u0123\3\2\2\2\34\u0130\3\2\2\2\36\u0132\3"+
-		"\2\2\2 \u0153\3\2\2\2\"\u016e\3\2\2\2$\u0185\3\2\2\2&\u018d\3\2\2\2(\u019d"+
-		"\3\2\2\2*\u01aa\3\2\2\2,\u01ac\3\2\2\2.\u01b3\3\2\2\2\60\u01c1\3\2\2\2"+
-		"\62\u01c7\3\2\2\2\64\u01e7\3\2\2\2\66\u01e9\3\2\2\28\u01f1\3\2\2\2:\u01fc"+
-		"\3\2\2\2<\u0207\3\2\2\2>\u0212\3\2\2\2@\u0222\3\2\2\2B\u0232\3\2\2\2D"+
-		"\u024e\3\2\2\2F\u0250\3\2\2\2H\u027f\3\2\2\2J\u0281\3\2\2\2L\u0287\3\2"+
-		"\2\2N\u0294\3\2\2\2P\u029a\3\2\2\2R\u029c\3\2\2\2T\u02af\3\2\2\2V\u02b1"+
-		"\3\2\2\2XZ\7,\2\2YX\3\2\2\2Z]\3\2\2\2[Y\3\2\2\2[\\\3\2\2\2\\^\3\2\2\2"+
-		"][\3\2\2\2^_\5\4\3\2_c\b\2\1\2`b\7,\2\2a`\3\2\2\2be\3\2\2\2ca\3\2\2\2"+
-		"cd\3\2\2\2df\3\2\2\2ec\3\2\2\2fg\7\2\2\3g\3\3\2\2\2hn\b\3\1\2ij\5\b\5"+
-		"\2jk\b\3\1\2km\3\2\2\2li\3\2\2\2mp\3\2\2\2nl\3\2\2\2no\3\2\2\2ov\3\2\2"+
-		"\2pn\3\2\2\2qr\5\24\13\2rs\b\3\1\2su\3\2\2\2tq\3\2\2\2ux\3\2\2\2vt\3\2"+
-		"\2\2vw\3\2\2\2wy\3\2\2\2xv\3\2\2\2yz\5\6\4\2z{\b\3\1\2{\5\3\2\2\2|}\b"+
-		"\4\1\2}~\7\3\2\2~\177\7%\2\2\177\u0080\7&\2\2\u0080\u0081\5\32\16\2\u0081"+
-		"\u0082\b\4\1\2\u0082\7\3\2\2\2\u0083\u0084\b\5\1\2\u0084\u0085\7\35\2"+
-		"\2\u0085\u0086\5R*\2\u0086\u009b\b\5\1\2\u0087\u0088\7\30\2\2\u0088\u0089"+
-		"\5\16\b\2\u0089\u008b\b\5\1\2\u008a\u008c\7,\2\2\u008b\u008a\3\2\2\2\u008c"+
-		"\u008d\3\2\2\2\u008d\u008b\3\2\2\2\u008d\u008e\3\2\2\2\u008e\u008f\3\2"+
-		"\2\2\u008f\u0090\7\31\2\2\u0090\u009c\3\2\2\2\u0091\u0093\7,\2\2\u0092"+
-		"\u0091\3\2\2\2\u0093\u0094\3\2\2\2\u0094\u0092\3\2\2\2\u0094\u0095\3\2"+
-		"\2\2\u0095\u0096\3\2\2\2\u0096\u0097\5\f\7\2\u0097\u0099\b\5\1\2\u0098"+
-		"\u009a\7+\2\2\u0099\u0098\3\2\2\2\u0099\u009a\3\2\2\2\u009a\u009c\3\2"+
-		"\2\2\u009b\u0087\3\2\2\2\u009b\u0092\3\2\2\2\u009c\u009e\3\2\2\2\u009d"+
-		"\u009f\7,\2\2\u009e\u009d\3\2\2\2\u009f\u00a0\3\2\2\2\u00a0\u009e\3\2"+
-		"\2\2\u00a0\u00a1\3\2\2\2\u00a1\t\3\2\2\2\u00a2\u00a3\b\6\1\2\u00a3\u00a4"+
-		"\5T+\2\u00a4\u00a5\5R*\2\u00a5\u00a6\b\6\1\2\u00a6\u00a7\5\26\f\2\u00a7"+
-		"\u00a8\b\6\1\2\u00a8\u00aa\7\30\2\2\u00a9\u00ab\7,\2\2\u00aa\u00a9\3\2"+
-		"\2\2\u00ab\u00ac\3\2\2\2\u00ac\u00aa\3\2\2\2\u00ac\u00ad\3\2\2\2\u00ad"+
-		"\u00ae\3\2\2\2\u00ae\u00af\5\22\n\2\u00af\u00b0\b\6\1\2\u00b0\u00b1\5"+
-		"\20\t\2\u00b1\u00b2\b\6\1\2\u00b2\u00b3\7\31\2\2\u00b3\13\3\2\2\2\u00b4"+
-		"\u00b5\5 \21\2\u00b5\u00b6\b\7\1\2\u00b6\u00bb\3\2\2\2\u00b7\u00b8\5\n"+
-		"\6\2\u00b8\u00b9\b\7\1\2\u00b9\u00bb\3\2\2\2\u00ba\u00b4\3\2\2\2\u00ba"+
-		"\u00b7\3\2\2\2\u00bb\r\3\2\2\2\u00bc\u00d0\b\b\1\2\u00bd\u00bf\7,\2\2"+
-		"\u00be\u00bd\3\2\2\2\u00bf\u00c0\3\2\2\2\u00c0\u00be\3\2\2\2\u00c0\u00c1"+
-		"\3\2\2\2\u00c1\u00c8\3\2\2\2\u00c2\u00c3\5\f\7\2\u00c3\u00c4\b\b\1\2\u00c4"+
-		"\u00c5\7+\2\2\u00c5\u00c7\3\2\2\2\u00c6\u00c2\3\2\2\2\u00c7\u00ca\3\2"+
-		"\2\2\u00c8\u00c6\3\2\2\2\u00c8\u00c9\3\2\2\2\u00c9\u00cb\3\2\2\2\u00ca"+
-		"\u00c8\3\2\2\2\u00cb\u00cc\5\f\7\2\u00cc\u00ce\b\b\1\2\u00cd\u00cf\7+"+
-		"\2\2\u00ce\u00cd\3\2\2\2\u00ce\u00cf\3\2\2\2\u00cf\u00d1\3\2\2\2\u00d0"+
-		"\u00be\3\2\2\2\u00d1\u00d2\3\2\2\2\u00d2\u00d0\3\2\2\2\u00d2\u00d3\3\2"+
-		"\2\2\u00d3\17\3\2\2\2\u00d4\u00d5\7\37\2\2\u00d5\u00d6\5\32\16\2\u00d6"+
-		"\u00d8\b\t\1\2\u00d7\u00d9\7,\2\2\u00d8\u00d7\3\2\2\2\u00d9\u00da\3\2"+
-		"\2\2\u00da\u00d8\3\2\2\2\u00da\u00db\3\2\2\2\u00db\21\3\2\2\2\u00dc\u00dd"+
-		"\7 \2\2\u00dd\u00de\5\32\16\2\u00de\u00e0\b\n\1\2\u00df\u00e1\7,\2\2\u00e0"+
-		"\u00df\3\2\2\2\u00e1\u00e2\3\2\2\2\u00e2\u00e0\3\2\2\2\u00e2\u00e3\3\2"+
-		"\2\2\u00e3\23\3\2\2\2\u00e4\u00ea\b\13\1\2\u00e5\u00e6\5T+\2\u00e6\u00e7"+
-		"\b\13\1\2\u00e7\u00eb\3\2\2\2\u00e8\u00e9\7\5\2\2\u00e9\u00eb\b\13\1\2"+
-		"\u00ea\u00e5\3\2\2\2\u00ea\u00e8\3\2\2\2\u00eb\u00ec\3\2\2\2\u00ec\u00ed"+
-		"\5R*\2\u00ed\u00ee\5\26\f\2\u00ee\u00ef\5\32\16\2\u00ef\u00f1\b\13\1\2"+
-		"\u00f0\u00f2\7,\2\2\u00f1\u00f0\3\2\2\2\u00f2\u00f3\3\2\2\2\u00f3\u00f1"+
-		"\3\2\2\2\u00f3\u00f4\3\2\2\2\u00f4\25\3\2\2\2\u00f5\u00f6\b\f\1\2\u00f6"+
-		"\u0104\7%\2\2\u00f7\u00f8\5T+\2\u00f8\u00f9\5R*\2\u00f9\u0101\b\f\1\2"+
-		"\u00fa\u00fb\7)\2\2\u00fb\u00fc\5T+\2\u00fc\u00fd\5R*\2\u00fd\u00fe\b"+
-		"\f\1\2\u00fe\u0100\3\2\2\2\u00ff\u00fa\3\2\2\2\u0100\u0103\3\2\2\2\u0101"+
-		"\u00ff\3\2\2\2\u0101\u0102\3\2\2\2\u0102\u0105\3\2\2\2\u0103\u0101\3\2"+
-		"\2\2\u0104\u00f7\3\2\2\2\u0104\u0105\3\2\2\2\u0105\u0106\3\2\2\2\u0106"+
-		"\u0107\7&\2\2\u0107\27\3\2\2\2\u0108\u0114\b\r\1\2\u0109\u010a\5\66\34"+
-		"\2\u010a\u0111\b\r\1\2\u010b\u010c\7)\2\2\u010c\u010d\5\66\34\2\u010d"+
-		"\u010e\b\r\1\2\u010e\u0110\3\2\2\2\u010f\u010b\3\2\2\2\u0110\u0113\3\2"+
-		"\2\2\u0111\u010f\3\2\2\2\u0111\u0112\3\2\2\2\u0112\u0115\3\2\2\2\u0113"+
-		"\u0111\3\2\2\2\u0114\u0109\3\2\2\2\u0114\u0115\3\2\2\2\u0115\31\3\2\2"+
-		"\2\u0116\u0117\5\36\20\2\u0117\u0118\b\16\1\2\u0118\u0124\3\2\2\2\u0119"+
-		"\u011b\7,\2\2\u011a\u0119\3\2\2\2\u011b\u011c\3\2\2\2\u011c\u011a\3\2"+
-		"\2\2\u011c\u011d\3\2\2\2\u011d\u011e\3\2\2\2\u011e\u011f\5\64\33\2\u011f"+
-		"\u0121\b\16\1\2\u0120\u0122\7+\2\2\u0121\u0120\3\2\2\2\u0121\u0122\3\2"+
-		"\2\2\u0122\u0124\3\2\2\2\u0123\u0116\3\2\2\2\u0123\u011a\3\2\2\2\u0124"+
-		"\33\3\2\2\2\u0125\u0126\5\36\20\2\u0126\u0127\b\17\1\2\u0127\u0131\3\2"+
-		"\2\2\u0128\u012a\7,\2\2\u0129\u0128\3\2\2\2\u012a\u012b\3\2\2\2\u012b"+
-		"\u0129\3\2\2\2\u012b\u012c\3\2\2\2\u012c\u012d\3\2\2\2\u012d\u012e\5\64"+
-		"\33\2\u012e\u012f\b\17\1\2\u012f\u0131\3\2\2\2\u0130\u0125\3\2\2\2\u0130"+
-		"\u0129\3\2\2\2\u0131\35\3\2\2\2\u0132\u0133\b\20\1\2\u0133\u0134\7\30"+
-		"\2\2\u0134\u0148\b\20\1\2\u0135\u0137\7,\2\2\u0136\u0135\3\2\2\2\u0137"+
-		"\u0138\3\2\2\2\u0138\u0136\3\2\2\2\u0138\u0139\3\2\2\2\u0139\u0140\3\2"+
-		"\2\2\u013a\u013b\5\64\33\2\u013b\u013c\b\20\1\2\u013c\u013d\7+\2\2\u013d"+
-		"\u013f\3\2\2\2\u013e\u013a\3\2\2\2\u013f\u0142\3\2\2\2\u0140\u013e\3\2"+
-		"\2\2\u0140\u0141\3\2\2\2\u0141\u0143\3\2\2\2\u0142\u0140\3\2\2\2\u0143"+
-		"\u0144\5\64\33\2\u0144\u0146\b\20\1\2\u0145\u0147\7+\2\2\u0146\u0145\3"+
-		"\2\2\2\u0146\u0147\3\2\2\2\u0147\u0149\3\2\2\2\u0148\u0136\3\2\2\2\u0149"+
-		"\u014a\3\2\2\2\u014a\u0148\3\2\2\2\u014a\u014b\3\2\2\2\u014b\u014d\3\2"+
-		"\2\2\u014c\u014e\7,\2\2\u014d\u014c\3\2\2\2\u014e\u014f\3\2\2\2\u014f"+
-		"\u014d\3\2\2\2\u014f\u0150\3\2\2\2\u0150\u0151\3\2\2\2\u0151\u0152\7\31"+
-		"\2\2\u0152\37\3\2\2\2\u0153\u0154\b\21\1\2\u0154\u0155\5T+\2\u0155\u0156"+
-		"\5R*\2\u0156\u015b\b\21\1\2\u0157\u0158\7#\2\2\u0158\u0159\58\35\2\u0159"+
-		"\u015a\b\21\1\2\u015a\u015c\3\2\2\2\u015b\u0157\3\2\2\2\u015b\u015c\3"+
-		"\2\2\2\u015c\u015d\3\2\2\2\u015d\u016b\b\21\1\2\u015e\u015f\7)\2\2\u015f"+
-		"\u0160\5R*\2\u0160\u0165\b\21\1\2\u0161\u0162\7#\2\2\u0162\u0163\58\35"+
-		"\2\u0163\u0164\b\21\1\2\u0164\u0166\3\2\2\2\u0165\u0161\3\2\2\2\u0165"+
-		"\u0166\3\2\2\2\u0166\u0167\3\2\2\2\u0167\u0168\b\21\1\2\u0168\u016a\3"+
-		"\2\2\2\u0169\u015e\3\2\2\2\u016a\u016d\3\2\2\2\u016b\u0169\3\2\2\2\u016b"+
-		"\u016c\3\2\2\2\u016c!\3\2\2\2\u016d\u016b\3\2\2\2\u016e\u016f\5H%\2\u016f"+
-		"\u017b\b\22\1\2\u0170\u0171\7%\2\2\u0171\u0172\5\30\r\2\u0172\u0173\7"+
-		"&\2\2\u0173\u0174\b\22\1\2\u0174\u017a\3\2\2\2\u0175\u0176\7*\2\2\u0176"+
-		"\u0177\5R*\2\u0177\u0178\b\22\1\2\u0178\u017a\3\2\2\2\u0179\u0170\3\2"+
-		"\2\2\u0179\u0175\3\2\2\2\u017a\u017d\3\2\2\2\u017b\u0179\3\2\2\2\u017b"+
-		"\u017c\3\2\2\2\u017c\u017e\3\2\2\2\u017d\u017b\3\2\2\2\u017e\u017f\7%"+
-		"\2\2\u017f\u0180\5\30\r\2\u0180\u0181\7&\2\2\u0181\u0182\b\22\1\2\u0182"+
-		"\u0183\3\2\2\2\u0183\u0184\b\22\1\2\u0184#\3\2\2\2\u0185\u0186\b\23\1"+
-		"\2\u0186\u0187\7\4\2\2\u0187\u018b\b\23\1\2\u0188\u0189\5\66\34\2\u0189"+
-		"\u018a\b\23\1\2\u018a\u018c\3\2\2\2\u018b\u0188\3\2\2\2\u018b\u018c\3"+
-		"\2\2\2\u018c%\3\2\2\2\u018d\u018e\7\t\2\2\u018e\u018f\5\66\34\2\u018f"+
-		"\u0198\b\24\1\2\u0190\u0191\5\34\17\2\u0191\u0192\b\24\1\2\u0192\u0199"+
-		"\3\2\2\2\u0193\u0194\5\32\16\2\u0194\u0195\b\24\1\2\u0195\u0196\5(\25"+
-		"\2\u0196\u0197\b\24\1\2\u0197\u0199\3\2\2\2\u0198\u0190\3\2\2\2\u0198"+
-		"\u0193\3\2\2\2\u0199\'\3\2\2\2\u019a\u019c\7,\2\2\u019b\u019a\3\2\2\2"+
-		"\u019c\u019f\3\2\2\2\u019d\u019b\3\2\2\2\u019d\u019e\3\2\2\2\u019e\u01a0"+
-		"\3\2\2\2\u019f\u019d\3\2\2\2\u01a0\u01a1\7\n\2\2\u01a1\u01a2\5\34\17\2"+
-		"\u01a2\u01a3\b\25\1\2\u01a3)\3\2\2\2\u01a4\u01a5\5,\27\2\u01a5\u01a6\b"+
-		"\26\1\2\u01a6\u01ab\3\2\2\2\u01a7\u01a8\5.\30\2\u01a8\u01a9\b\26\1\2\u01a9"+
-		"\u01ab\3\2\2\2\u01aa\u01a4\3\2\2\2\u01aa\u01a7\3\2\2\2\u01ab+\3\2\2\2"+
-		"\u01ac\u01ad\b\27\1\2\u01ad\u01ae\7!\2\2\u01ae\u01af\5\66\34\2\u01af\u01b0"+
-		"\b\27\1\2\u01b0\u01b1\5\34\17\2\u01b1\u01b2\b\27\1\2\u01b2-\3\2\2\2\u01b3"+
-		"\u01b4\b\30\1\2\u01b4\u01b5\7\"\2\2\u01b5\u01b6\5\32\16\2\u01b6\u01ba"+
-		"\b\30\1\2\u01b7\u01b9\7,\2\2\u01b8\u01b7\3\2\2\2\u01b9\u01bc\3\2\2\2\u01ba"+
-		"\u01b8\3\2\2\2\u01ba\u01bb\3\2\2\2\u01bb\u01bd\3\2\2\2\u01bc\u01ba\3\2"+
-		"\2\2\u01bd\u01be\7!\2\2\u01be\u01bf\5\66\34\2\u01bf\u01c0\b\30\1\2\u01c0"+
-		"/\3\2\2\2\u01c1\u01c2\7\7\2\2\u01c2\u01c3\7%\2\2\u01c3\u01c4\5\66\34\2"+
-		"\u01c4\u01c5\b\31\1\2\u01c5\u01c6\7&\2\2\u01c6\61\3\2\2\2\u01c7\u01c8"+
-		"\58\35\2\u01c8\u01c9\7#\2\2\u01c9\u01ca\5\66\34\2\u01ca\u01cb\b\32\1\2"+
-		"\u01cb\63\3\2\2\2\u01cc\u01cd\5&\24\2\u01cd\u01ce\b\33\1\2\u01ce\u01e8"+
-		"\3\2\2\2\u01cf\u01d0\5\60\31\2\u01d0\u01d1\b\33\1\2\u01d1\u01e8\3\2\2"+
-		"\2\u01d2\u01d3\5\"\22\2\u01d3\u01d4\b\33\1\2\u01d4\u01e8\3\2\2\2\u01d5"+
-		"\u01d6\5$\23\2\u01d6\u01d7\b\33\1\2\u01d7\u01e8\3\2\2\2\u01d8\u01d9\5"+
-		"\62\32\2\u01d9\u01da\b\33\1\2\u01da\u01e8\3\2\2\2\u01db\u01dc\5 \21\2"+
-		"\u01dc\u01dd\b\33\1\2\u01dd\u01e8\3\2\2\2\u01de\u01df\5*\26\2\u01df\u01e0"+
-		"\b\33\1\2\u01e0\u01e8\3\2\2\2\u01e1\u01e2\5L\'\2\u01e2\u01e3\b\33\1\2"+
-		"\u01e3\u01e8\3\2\2\2\u01e4\u01e5\5J&\2\u01e5\u01e6\b\33\1\2\u01e6\u01e8"+
-		"\3\2\2\2\u01e7\u01cc\3\2\2\2\u01e7\u01cf\3\2\2\2\u01e7\u01d2\3\2\2\2\u01e7"+
-		"\u01d5\3\2\2\2\u01e7\u01d8\3\2\2\2\u01e7\u01db\3\2\2\2\u01e7\u01de\3\2"+
-		"\2\2\u01e7\u01e1\3\2\2\2\u01e7\u01e4\3\2\2\2\u01e8\65\3\2\2\2\u01e9\u01ea"+
-		"\58\35\2\u01ea\u01ef\b\34\1\2\u01eb\u01ec\7#\2\2\u01ec\u01ed\5\66\34\2"+
-		"\u01ed\u01ee\b\34\1\2\u01ee\u01f0\3\2\2\2\u01ef\u01eb\3\2\2\2\u01ef\u01f0"+
-		"\3\2\2\2\u01f0\67\3\2\2\2\u01f1\u01f2\5:\36\2\u01f2\u01f9\b\35\1\2\u01f3"+
-		"\u01f4\7\24\2\2\u01f4\u01f5\5:\36\2\u01f5\u01f6\b\35\1\2\u01f6\u01f8\3"+
-		"\2\2\2\u01f7\u01f3\3\2\2\2\u01f8\u01fb\3\2\2\2\u01f9\u01f7\3\2\2\2\u01f9"+
-		"\u01fa\3\2\2\2\u01fa9\3\2\2\2\u01fb\u01f9\3\2\2\2\u01fc\u01fd\5<\37\2"+
-		"\u01fd\u0204\b\36\1\2\u01fe\u01ff\7\23\2\2\u01ff\u0200\5<\37\2\u0200\u0201"+
-		"\b\36\1\2\u0201\u0203\3\2\2\2\u0202\u01fe\3\2\2\2\u0203\u0206\3\2\2\2"+
-		"\u0204\u0202\3\2\2\2\u0204\u0205\3\2\2\2\u0205;\3\2\2\2\u0206\u0204\3"+
-		"\2\2\2\u0207\u0208\5> \2\u0208\u020f\b\37\1\2\u0209\u020a\7\17\2\2\u020a"+
-		"\u020b\5> \2\u020b\u020c\b\37\1\2\u020c\u020e\3\2\2\2\u020d\u0209\3\2"+
-		"\2\2\u020e\u0211\3\2\2\2\u020f\u020d\3\2\2\2\u020f\u0210\3\2\2\2\u0210"+
-		"=\3\2\2\2\u0211\u020f\3\2\2\2\u0212\u0213\5@!\2\u0213\u021f\b \1\2\u0214"+
-		"\u0215\7\21\2\2\u0215\u0219\b \1\2\u0216\u0217\7\22\2\2\u0217\u0219\b"+
-		" \1\2\u0218\u0214\3\2\2\2\u0218\u0216\3\2\2\2\u0219\u021a\3\2\2\2\u021a"+
-		"\u021b\5@!\2\u021b\u021c\b \1\2\u021c\u021e\3\2\2\2\u021d\u0218\3\2\2"+
-		"\2\u021e\u0221\3\2\2\2\u021f\u021d\3\2\2\2\u021f\u0220\3\2\2\2\u0220?"+
-		"\3\2\2\2\u0221\u021f\3\2\2\2\u0222\u0223\5B\"\2\u0223\u022f\b!\1\2\u0224"+
-		"\u0225\7\13\2\2\u0225\u0229\b!\1\2\u0226\u0227\7\f\2\2\u0227\u0229\b!"+
-		"\1\2\u0228\u0224\3\2\2\2\u0228\u0226\3\2\2\2\u0229\u022a\3\2\2\2\u022a"+
-		"\u022b\5B\"\2\u022b\u022c\b!\1\2\u022c\u022e\3\2\2\2\u022d\u0228\3\2\2"+
-		"\2\u022e\u0231\3\2\2\2\u022f\u022d\3\2\2\2\u022f\u0230\3\2\2\2\u0230A"+
-		"\3\2\2\2\u0231\u022f\3\2\2\2\u0232\u0233\5D#\2\u0233\u023f\b\"\1\2\u0234"+
-		"\u0235\7\r\2\2\u0235\u0239\b\"\1\2\u0236\u0237\7\16\2\2\u0237\u0239\b"+
-		"\"\1\2\u0238\u0234\3\2\2\2\u0238\u0236\3\2\2\2\u0239\u023a\3\2\2\2\u023a"+
-		"\u023b\5D#\2\u023b\u023c\b\"\1\2\u023c\u023e\3\2\2\2\u023d\u0238\3\2\2"+
-		"\2\u023e\u0241\3\2\2\2\u023f\u023d\3\2\2\2\u023f\u0240\3\2\2\2\u0240C"+
-		"\3\2\2\2\u0241\u023f\3\2\2\2\u0242\u0243\7\25\2\2\u0243\u0247\b#\1\2\u0244"+
-		"\u0245\7\f\2\2\u0245\u0247\b#\1\2\u0246\u0242\3\2\2\2\u0246\u0244\3\2"+
-		"\2\2\u0247\u0248\3\2\2\2\u0248\u0249\5D#\2\u0249\u024a\b#\1\2\u024a\u024f"+
-		"\3\2\2\2\u024b\u024c\5F$\2\u024c\u024d\b#\1\2\u024d\u024f\3\2\2\2\u024e"+
-		"\u0246\3\2\2\2\u024e\u024b\3\2\2\2\u024fE\3\2\2\2\u0250\u0251\5H%\2\u0251"+
-		"\u025d\b$\1\2\u0252\u0253\7%\2\2\u0253\u0254\5\30\r\2\u0254\u0255\b$\1"+
-		"\2\u0255\u0256\7&\2\2\u0256\u025c\3\2\2\2\u0257\u0258\7*\2\2\u0258\u0259"+
-		"\5R*\2\u0259\u025a\b$\1\2\u025a\u025c\3\2\2\2\u025b\u0252\3\2\2\2\u025b"+
-		"\u0257\3\2\2\2\u025c\u025f\3\2\2\2\u025d\u025b\3\2\2\2\u025d\u025e\3\2"+
-		"\2\2\u025e\u026b\3\2\2\2\u025f\u025d\3\2\2\2\u0260\u0261\7\'\2\2\u0261"+
-		"\u0262\5\66\34\2\u0262\u0263\b$\1\2\u0263\u0264\7(\2\2\u0264\u026a\3\2"+
-		"\2\2\u0265\u0266\7*\2\2\u0266\u0267\5R*\2\u0267\u0268\b$\1\2\u0268\u026a"+
-		"\3\2\2\2\u0269\u0260\3\2\2\2\u0269\u0265\3\2\2\2\u026a\u026d\3\2\2\2\u026b"+
-		"\u0269\3\2\2\2\u026b\u026c\3\2\2\2\u026cG\3\2\2\2\u026d\u026b\3\2\2\2"+
-		"\u026e\u026f\5N(\2\u026f\u0270\b%\1\2\u0270\u0280\3\2\2\2\u0271\u0272"+
-		"\5R*\2\u0272\u0273\b%\1\2\u0273\u0280\3\2\2\2\u0274\u0275\7%\2\2\u0275"+
-		"\u0276\5\30\r\2\u0276\u0277\7&\2\2\u0277\u0278\b%\1\2\u0278\u0280\3\2"+
-		"\2\2\u0279\u027a\5J&\2\u027a\u027b\b%\1\2\u027b\u0280\3\2\2\2\u027c\u027d"+
-		"\5L\'\2\u027d\u027e\b%\1\2\u027e\u0280\3\2\2\2\u027f\u026e\3\2\2\2\u027f"+
-		"\u0271\3\2\2\2\u027f\u0274\3\2\2\2\u027f\u0279\3\2\2\2\u027f\u027c\3\2"+
-		"\2\2\u0280I\3\2\2\2\u0281\u0282\7\6\2\2\u0282\u0283\7%\2\2\u0283\u0284"+
-		"\5\66\34\2\u0284\u0285\b&\1\2\u0285\u0286\7&\2\2\u0286K\3\2\2\2\u0287"+
-		"\u0288\7\b\2\2\u0288\u0289\7%\2\2\u0289\u028a\5\66\34\2\u028a\u028b\7"+
-		")\2\2\u028b\u028c\5\66\34\2\u028c\u028d\7&\2\2\u028d\u028e\b\'\1\2\u028e"+
-		"M\3\2\2\2\u028f\u0290\5P)\2\u0290\u0291\b(\1\2\u0291\u0295\3\2\2\2\u0292"+
-		"\u0293\7-\2\2\u0293\u0295\b(\1\2\u0294\u028f\3\2\2\2\u0294\u0292\3\2\2"+
-		"\2\u0295O\3\2\2\2\u0296\u0297\7\26\2\2\u0297\u029b\b)\1\2\u0298\u0299"+
-		"\7\27\2\2\u0299\u029b\b)\1\2\u029a\u0296\3\2\2\2\u029a\u0298\3\2\2\2\u029b"+
-		"Q\3\2\2\2\u029c\u029d\7.\2\2\u029d\u029e\b*\1\2\u029eS\3\2\2\2\u029f\u02a0"+
-		"\7\32\2\2\u02a0\u02b0\b+\1\2\u02a1\u02a2\7\33\2\2\u02a2\u02b0\b+\1\2\u02a3"+
-		"\u02a4\7\34\2\2\u02a4\u02a5\7$\2\2\u02a5\u02a6\5T+\2\u02a6\u02a7\b+\1"+
-		"\2\u02a7\u02b0\3\2\2\2\u02a8\u02a9\7\35\2\2\u02a9\u02aa\5R*\2\u02aa\u02ab"+
-		"\b+\1\2\u02ab\u02b0\3\2\2\2\u02ac\u02ad\5V,\2\u02ad\u02ae\b+\1\2\u02ae"+
-		"\u02b0\3\2\2\2\u02af\u029f\3\2\2\2\u02af\u02a1\3\2\2\2\u02af\u02a3\3\2"+
-		"\2\2\u02af\u02a8\3\2\2\2\u02af\u02ac\3\2\2\2\u02b0U\3\2\2\2\u02b1\u02b2"+
-		"\b,\1\2\u02b2\u02b3\7\36\2\2\u02b3\u02c1\7\22\2\2\u02b4\u02b5\7\5\2\2"+
-		"\u02b5\u02c2\b,\1\2\u02b6\u02b7\5T+\2\u02b7\u02be\b,\1\2\u02b8\u02b9\7"+
-		")\2\2\u02b9\u02ba\5T+\2\u02ba\u02bb\b,\1\2\u02bb\u02bd\3\2\2\2\u02bc\u02b8"+
-		"\3\2\2\2\u02bd\u02c0\3\2\2\2\u02be\u02bc\3\2\2\2\u02be\u02bf\3\2\2\2\u02bf"+
-		"\u02c2\3\2\2\2\u02c0\u02be\3\2\2\2\u02c1\u02b4\3\2\2\2\u02c1\u02b6\3\2"+
-		"\2\2\u02c2\u02c3\3\2\2\2\u02c3\u02c9\7\20\2\2\u02c4\u02c5\5T+\2\u02c5"+
-		"\u02c6\b,\1\2\u02c6\u02ca\3\2\2\2\u02c7\u02c8\7\5\2\2\u02c8\u02ca\b,\1"+
-		"\2\u02c9\u02c4\3\2\2\2\u02c9\u02c7\3\2\2\2\u02ca\u02cb\3\2\2\2\u02cb\u02cc"+
-		"\7\21\2\2\u02ccW\3\2\2\2E[cnv\u008d\u0094\u0099\u009b\u00a0\u00ac\u00ba"+
+		"\3\24\3\24\3\24\3\24\3\24\3\24\3\24\5\24\u0196\n\24\3\24\6\24\u0199\n"+
+		"\24\r\24\16\24\u019a\3\24\3\24\3\24\5\24\u01a0\n\24\3\24\3\24\3\24\5\24"+
+		"\u01a5\n\24\5\24\u01a7\n\24\3\25\7\25\u01aa\n\25\f\25\16\25\u01ad\13\25"+
+		"\3\25\3\25\3\25\3\25\3\26\3\26\3\26\3\26\3\26\3\26\5\26\u01b9\n\26\3\27"+
+		"\3\27\3\27\3\27\3\27\3\27\3\27\3\30\3\30\3\30\3\30\3\30\7\30\u01c7\n\30"+
+		"\f\30\16\30\u01ca\13\30\3\30\3\30\3\30\3\30\3\31\3\31\3\31\3\31\3\31\3"+
+		"\31\3\32\3\32\3\32\3\32\3\32\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3"+
+		"\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3"+
+		"\33\3\33\3\33\3\33\3\33\5\33\u01f6\n\33\3\34\3\34\3\34\3\34\3\34\3\34"+
+		"\5\34\u01fe\n\34\3\35\3\35\3\35\3\35\3\35\3\35\7\35\u0206\n\35\f\35\16"+
+		"\35\u0209\13\35\3\36\3\36\3\36\3\36\3\36\3\36\7\36\u0211\n\36\f\36\16"+
+		"\36\u0214\13\36\3\37\3\37\3\37\3\37\3\37\3\37\7\37\u021c\n\37\f\37\16"+
+		"\37\u021f\13\37\3 \3 \3 \3 \3 \3 \5 \u0227\n \3 \3 \3 \7 \u022c\n \f "+
+		"\16 \u022f\13 \3!\3!\3!\3!\3!\3!\5!\u0237\n!\3!\3!\3!\7!\u023c\n!\f!\16"+
+		"!\u023f\13!\3\"\3\"\3\"\3\"\3\"\3\"\5\"\u0247\n\"\3\"\3\"\3\"\7\"\u024c"+
+		"\n\"\f\"\16\"\u024f\13\"\3#\3#\3#\3#\5#\u0255\n#\3#\3#\3#\3#\3#\3#\5#"+
+		"\u025d\n#\3$\3$\3$\3$\3$\3$\3$\3$\3$\3$\3$\7$\u026a\n$\f$\16$\u026d\13"+
+		"$\3$\3$\3$\3$\3$\3$\3$\3$\3$\7$\u0278\n$\f$\16$\u027b\13$\3%\3%\3%\3%"+
+		"\3%\3%\3%\3%\3%\3%\3%\3%\3%\3%\3%\3%\3%\5%\u028e\n%\3&\3&\3&\3&\3&\3&"+
+		"\3\'\3\'\3\'\3\'\3\'\3\'\3\'\3\'\3(\3(\3(\3(\3(\5(\u02a3\n(\3)\3)\3)\3"+
+		")\5)\u02a9\n)\3*\3*\3*\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3+\3"+
+		"+\5+\u02be\n+\3,\3,\3,\3,\3,\3,\3,\3,\3,\3,\3,\7,\u02cb\n,\f,\16,\u02ce"+
+		"\13,\5,\u02d0\n,\3,\3,\3,\3,\3,\3,\5,\u02d8\n,\3,\3,\3,\2\2-\2\4\6\b\n"+
+		"\f\16\20\22\24\26\30\32\34\36 \"$&(*,.\60\62\64\668:<>@BDFHJLNPRTV\2\2"+
+		"\2\u0304\2[\3\2\2\2\4h\3\2\2\2\6|\3\2\2\2\b\u0083\3\2\2\2\n\u00a2\3\2"+
+		"\2\2\f\u00ba\3\2\2\2\16\u00bc\3\2\2\2\20\u00d4\3\2\2\2\22\u00dc\3\2\2"+
+		"\2\24\u00e4\3\2\2\2\26\u00f5\3\2\2\2\30\u0108\3\2\2\2\32\u0123\3\2\2\2"+
+		"\34\u0130\3\2\2\2\36\u0132\3\2\2\2 \u0153\3\2\2\2\"\u016e\3\2\2\2$\u0185"+
+		"\3\2\2\2&\u018d\3\2\2\2(\u01ab\3\2\2\2*\u01b8\3\2\2\2,\u01ba\3\2\2\2."+
+		"\u01c1\3\2\2\2\60\u01cf\3\2\2\2\62\u01d5\3\2\2\2\64\u01f5\3\2\2\2\66\u01f7"+
+		"\3\2\2\28\u01ff\3\2\2\2:\u020a\3\2\2\2<\u0215\3\2\2\2>\u0220\3\2\2\2@"+
+		"\u0230\3\2\2\2B\u0240\3\2\2\2D\u025c\3\2\2\2F\u025e\3\2\2\2H\u028d\3\2"+
+		"\2\2J\u028f\3\2\2\2L\u0295\3\2\2\2N\u02a2\3\2\2\2P\u02a8\3\2\2\2R\u02aa"+
+		"\3\2\2\2T\u02bd\3\2\2\2V\u02bf\3\2\2\2XZ\7,\2\2YX\3\2\2\2Z]\3\2\2\2[Y"+
+		"\3\2\2\2[\\\3\2\2\2\\^\3\2\2\2][\3\2\2\2^_\5\4\3\2_c\b\2\1\2`b\7,\2\2"+
+		"a`\3\2\2\2be\3\2\2\2ca\3\2\2\2cd\3\2\2\2df\3\2\2\2ec\3\2\2\2fg\7\2\2\3"+
+		"g\3\3\2\2\2hn\b\3\1\2ij\5\b\5\2jk\b\3\1\2km\3\2\2\2li\3\2\2\2mp\3\2\2"+
+		"\2nl\3\2\2\2no\3\2\2\2ov\3\2\2\2pn\3\2\2\2qr\5\24\13\2rs\b\3\1\2su\3\2"+
+		"\2\2tq\3\2\2\2ux\3\2\2\2vt\3\2\2\2vw\3\2\2\2wy\3\2\2\2xv\3\2\2\2yz\5\6"+
+		"\4\2z{\b\3\1\2{\5\3\2\2\2|}\b\4\1\2}~\7\3\2\2~\177\7%\2\2\177\u0080\7"+
+		"&\2\2\u0080\u0081\5\32\16\2\u0081\u0082\b\4\1\2\u0082\7\3\2\2\2\u0083"+
+		"\u0084\b\5\1\2\u0084\u0085\7\35\2\2\u0085\u0086\5R*\2\u0086\u009b\b\5"+
+		"\1\2\u0087\u0088\7\30\2\2\u0088\u0089\5\16\b\2\u0089\u008b\b\5\1\2\u008a"+
+		"\u008c\7,\2\2\u008b\u008a\3\2\2\2\u008c\u008d\3\2\2\2\u008d\u008b\3\2"+
+		"\2\2\u008d\u008e\3\2\2\2\u008e\u008f\3\2\2\2\u008f\u0090\7\31\2\2\u0090"+
+		"\u009c\3\2\2\2\u0091\u0093\7,\2\2\u0092\u0091\3\2\2\2\u0093\u0094\3\2"+
+		"\2\2\u0094\u0092\3\2\2\2\u0094\u0095\3\2\2\2\u0095\u0096\3\2\2\2\u0096"+
+		"\u0097\5\f\7\2\u0097\u0099\b\5\1\2\u0098\u009a\7+\2\2\u0099\u0098\3\2"+
+		"\2\2\u0099\u009a\3\2\2\2\u009a\u009c\3\2\2\2\u009b\u0087\3\2\2\2\u009b"+
+		"\u0092\3\2\2\2\u009c\u009e\3\2\2\2\u009d\u009f\7,\2\2\u009e\u009d\3\2"+
+		"\2\2\u009f\u00a0\3\2\2\2\u00a0\u009e\3\2\2\2\u00a0\u00a1\3\2\2\2\u00a1"+
+		"\t\3\2\2\2\u00a2\u00a3\b\6\1\2\u00a3\u00a4\5T+\2\u00a4\u00a5\5R*\2\u00a5"+
+		"\u00a6\b\6\1\2\u00a6\u00a7\5\26\f\2\u00a7\u00a8\b\6\1\2\u00a8\u00aa\7"+
+		"\30\2\2\u00a9\u00ab\7,\2\2\u00aa\u00a9\3\2\2\2\u00ab\u00ac\3\2\2\2\u00ac"+
+		"\u00aa\3\2\2\2\u00ac\u00ad\3\2\2\2\u00ad\u00ae\3\2\2\2\u00ae\u00af\5\22"+
+		"\n\2\u00af\u00b0\b\6\1\2\u00b0\u00b1\5\20\t\2\u00b1\u00b2\b\6\1\2\u00b2"+
+		"\u00b3\7\31\2\2\u00b3\13\3\2\2\2\u00b4\u00b5\5 \21\2\u00b5\u00b6\b\7\1"+
+		"\2\u00b6\u00bb\3\2\2\2\u00b7\u00b8\5\n\6\2\u00b8\u00b9\b\7\1\2\u00b9\u00bb"+
+		"\3\2\2\2\u00ba\u00b4\3\2\2\2\u00ba\u00b7\3\2\2\2\u00bb\r\3\2\2\2\u00bc"+
+		"\u00d0\b\b\1\2\u00bd\u00bf\7,\2\2\u00be\u00bd\3\2\2\2\u00bf\u00c0\3\2"+
+		"\2\2\u00c0\u00be\3\2\2\2\u00c0\u00c1\3\2\2\2\u00c1\u00c8\3\2\2\2\u00c2"+
+		"\u00c3\5\f\7\2\u00c3\u00c4\b\b\1\2\u00c4\u00c5\7+\2\2\u00c5\u00c7\3\2"+
+		"\2\2\u00c6\u00c2\3\2\2\2\u00c7\u00ca\3\2\2\2\u00c8\u00c6\3\2\2\2\u00c8"+
+		"\u00c9\3\2\2\2\u00c9\u00cb\3\2\2\2\u00ca\u00c8\3\2\2\2\u00cb\u00cc\5\f"+
+		"\7\2\u00cc\u00ce\b\b\1\2\u00cd\u00cf\7+\2\2\u00ce\u00cd\3\2\2\2\u00ce"+
+		"\u00cf\3\2\2\2\u00cf\u00d1\3\2\2\2\u00d0\u00be\3\2\2\2\u00d1\u00d2\3\2"+
+		"\2\2\u00d2\u00d0\3\2\2\2\u00d2\u00d3\3\2\2\2\u00d3\17\3\2\2\2\u00d4\u00d5"+
+		"\7\37\2\2\u00d5\u00d6\5\32\16\2\u00d6\u00d8\b\t\1\2\u00d7\u00d9\7,\2\2"+
+		"\u00d8\u00d7\3\2\2\2\u00d9\u00da\3\2\2\2\u00da\u00d8\3\2\2\2\u00da\u00db"+
+		"\3\2\2\2\u00db\21\3\2\2\2\u00dc\u00dd\7 \2\2\u00dd\u00de\5\32\16\2\u00de"+
+		"\u00e0\b\n\1\2\u00df\u00e1\7,\2\2\u00e0\u00df\3\2\2\2\u00e1\u00e2\3\2"+
+		"\2\2\u00e2\u00e0\3\2\2\2\u00e2\u00e3\3\2\2\2\u00e3\23\3\2\2\2\u00e4\u00ea"+
+		"\b\13\1\2\u00e5\u00e6\5T+\2\u00e6\u00e7\b\13\1\2\u00e7\u00eb\3\2\2\2\u00e8"+
+		"\u00e9\7\5\2\2\u00e9\u00eb\b\13\1\2\u00ea\u00e5\3\2\2\2\u00ea\u00e8\3"+
+		"\2\2\2\u00eb\u00ec\3\2\2\2\u00ec\u00ed\5R*\2\u00ed\u00ee\5\26\f\2\u00ee"+
+		"\u00ef\5\32\16\2\u00ef\u00f1\b\13\1\2\u00f0\u00f2\7,\2\2\u00f1\u00f0\3"+
+		"\2\2\2\u00f2\u00f3\3\2\2\2\u00f3\u00f1\3\2\2\2\u00f3\u00f4\3\2\2\2\u00f4"+
+		"\25\3\2\2\2\u00f5\u00f6\b\f\1\2\u00f6\u0104\7%\2\2\u00f7\u00f8\5T+\2\u00f8"+
+		"\u00f9\5R*\2\u00f9\u0101\b\f\1\2\u00fa\u00fb\7)\2\2\u00fb\u00fc\5T+\2"+
+		"\u00fc\u00fd\5R*\2\u00fd\u00fe\b\f\1\2\u00fe\u0100\3\2\2\2\u00ff\u00fa"+
+		"\3\2\2\2\u0100\u0103\3\2\2\2\u0101\u00ff\3\2\2\2\u0101\u0102\3\2\2\2\u0102"+
+		"\u0105\3\2\2\2\u0103\u0101\3\2\2\2\u0104\u00f7\3\2\2\2\u0104\u0105\3\2"+
+		"\2\2\u0105\u0106\3\2\2\2\u0106\u0107\7&\2\2\u0107\27\3\2\2\2\u0108\u0114"+
+		"\b\r\1\2\u0109\u010a\5\66\34\2\u010a\u0111\b\r\1\2\u010b\u010c\7)\2\2"+
+		"\u010c\u010d\5\66\34\2\u010d\u010e\b\r\1\2\u010e\u0110\3\2\2\2\u010f\u010b"+
+		"\3\2\2\2\u0110\u0113\3\2\2\2\u0111\u010f\3\2\2\2\u0111\u0112\3\2\2\2\u0112"+
+		"\u0115\3\2\2\2\u0113\u0111\3\2\2\2\u0114\u0109\3\2\2\2\u0114\u0115\3\2"+
+		"\2\2\u0115\31\3\2\2\2\u0116\u0117\5\36\20\2\u0117\u0118\b\16\1\2\u0118"+
+		"\u0124\3\2\2\2\u0119\u011b\7,\2\2\u011a\u0119\3\2\2\2\u011b\u011c\3\2"+
+		"\2\2\u011c\u011a\3\2\2\2\u011c\u011d\3\2\2\2\u011d\u011e\3\2\2\2\u011e"+
+		"\u011f\5\64\33\2\u011f\u0121\b\16\1\2\u0120\u0122\7+\2\2\u0121\u0120\3"+
+		"\2\2\2\u0121\u0122\3\2\2\2\u0122\u0124\3\2\2\2\u0123\u0116\3\2\2\2\u0123"+
+		"\u011a\3\2\2\2\u0124\33\3\2\2\2\u0125\u0126\5\36\20\2\u0126\u0127\b\17"+
+		"\1\2\u0127\u0131\3\2\2\2\u0128\u012a\7,\2\2\u0129\u0128\3\2\2\2\u012a"+
+		"\u012b\3\2\2\2\u012b\u0129\3\2\2\2\u012b\u012c\3\2\2\2\u012c\u012d\3\2"+
+		"\2\2\u012d\u012e\5\64\33\2\u012e\u012f\b\17\1\2\u012f\u0131\3\2\2\2\u0130"+
+		"\u0125\3\2\2\2\u0130\u0129\3\2\2\2\u0131\35\3\2\2\2\u0132\u0133\b\20\1"+
+		"\2\u0133\u0134\7\30\2\2\u0134\u0148\b\20\1\2\u0135\u0137\7,\2\2\u0136"+
+		"\u0135\3\2\2\2\u0137\u0138\3\2\2\2\u0138\u0136\3\2\2\2\u0138\u0139\3\2"+
+		"\2\2\u0139\u0140\3\2\2\2\u013a\u013b\5\64\33\2\u013b\u013c\b\20\1\2\u013c"+
+		"\u013d\7+\2\2\u013d\u013f\3\2\2\2\u013e\u013a\3\2\2\2\u013f\u0142\3\2"+
+		"\2\2\u0140\u013e\3\2\2\2\u0140\u0141\3\2\2\2\u0141\u0143\3\2\2\2\u0142"+
+		"\u0140\3\2\2\2\u0143\u0144\5\64\33\2\u0144\u0146\b\20\1\2\u0145\u0147"+
+		"\7+\2\2\u0146\u0145\3\2\2\2\u0146\u0147\3\2\2\2\u0147\u0149\3\2\2\2\u0148"+
+		"\u0136\3\2\2\2\u0149\u014a\3\2\2\2\u014a\u0148\3\2\2\2\u014a\u014b\3\2"+
+		"\2\2\u014b\u014d\3\2\2\2\u014c\u014e\7,\2\2\u014d\u014c\3\2\2\2\u014e"+
+		"\u014f\3\2\2\2\u014f\u014d\3\2\2\2\u014f\u0150\3\2\2\2\u0150\u0151\3\2"+
+		"\2\2\u0151\u0152\7\31\2\2\u0152\37\3\2\2\2\u0153\u0154\b\21\1\2\u0154"+
+		"\u0155\5T+\2\u0155\u0156\5R*\2\u0156\u015b\b\21\1\2\u0157\u0158\7#\2\2"+
+		"\u0158\u0159\58\35\2\u0159\u015a\b\21\1\2\u015a\u015c\3\2\2\2\u015b\u0157"+
+		"\3\2\2\2\u015b\u015c\3\2\2\2\u015c\u015d\3\2\2\2\u015d\u016b\b\21\1\2"+
+		"\u015e\u015f\7)\2\2\u015f\u0160\5R*\2\u0160\u0165\b\21\1\2\u0161\u0162"+
+		"\7#\2\2\u0162\u0163\58\35\2\u0163\u0164\b\21\1\2\u0164\u0166\3\2\2\2\u0165"+
+		"\u0161\3\2\2\2\u0165\u0166\3\2\2\2\u0166\u0167\3\2\2\2\u0167\u0168\b\21"+
+		"\1\2\u0168\u016a\3\2\2\2\u0169\u015e\3\2\2\2\u016a\u016d\3\2\2\2\u016b"+
+		"\u0169\3\2\2\2\u016b\u016c\3\2\2\2\u016c!\3\2\2\2\u016d\u016b\3\2\2\2"+
+		"\u016e\u016f\5H%\2\u016f\u017b\b\22\1\2\u0170\u0171\7%\2\2\u0171\u0172"+
+		"\5\30\r\2\u0172\u0173\7&\2\2\u0173\u0174\b\22\1\2\u0174\u017a\3\2\2\2"+
+		"\u0175\u0176\7*\2\2\u0176\u0177\5R*\2\u0177\u0178\b\22\1\2\u0178\u017a"+
+		"\3\2\2\2\u0179\u0170\3\2\2\2\u0179\u0175\3\2\2\2\u017a\u017d\3\2\2\2\u017b"+
+		"\u0179\3\2\2\2\u017b\u017c\3\2\2\2\u017c\u017e\3\2\2\2\u017d\u017b\3\2"+
+		"\2\2\u017e\u017f\7%\2\2\u017f\u0180\5\30\r\2\u0180\u0181\7&\2\2\u0181"+
+		"\u0182\b\22\1\2\u0182\u0183\3\2\2\2\u0183\u0184\b\22\1\2\u0184#\3\2\2"+
+		"\2\u0185\u0186\b\23\1\2\u0186\u0187\7\4\2\2\u0187\u018b\b\23\1\2\u0188"+
+		"\u0189\5\66\34\2\u0189\u018a\b\23\1\2\u018a\u018c\3\2\2\2\u018b\u0188"+
+		"\3\2\2\2\u018b\u018c\3\2\2\2\u018c%\3\2\2\2\u018d\u018e\7\t\2\2\u018e"+
+		"\u018f\5\66\34\2\u018f\u01a6\b\24\1\2\u0190\u0191\5\36\20\2\u0191\u0195"+
+		"\b\24\1\2\u0192\u0193\5(\25\2\u0193\u0194\b\24\1\2\u0194\u0196\3\2\2\2"+
+		"\u0195\u0192\3\2\2\2\u0195\u0196\3\2\2\2\u0196\u01a7\3\2\2\2\u0197\u0199"+
+		"\7,\2\2\u0198\u0197\3\2\2\2\u0199\u019a\3\2\2\2\u019a\u0198\3\2\2\2\u019a"+
+		"\u019b\3\2\2\2\u019b\u019c\3\2\2\2\u019c\u019d\5\64\33\2\u019d\u01a4\b"+
+		"\24\1\2\u019e\u01a0\7+\2\2\u019f\u019e\3\2\2\2\u019f\u01a0\3\2\2\2\u01a0"+
+		"\u01a1\3\2\2\2\u01a1\u01a2\5(\25\2\u01a2\u01a3\b\24\1\2\u01a3\u01a5\3"+
+		"\2\2\2\u01a4\u019f\3\2\2\2\u01a4\u01a5\3\2\2\2\u01a5\u01a7\3\2\2\2\u01a6"+
+		"\u0190\3\2\2\2\u01a6\u0198\3\2\2\2\u01a7\'\3\2\2\2\u01a8\u01aa\7,\2\2"+
+		"\u01a9\u01a8\3\2\2\2\u01aa\u01ad\3\2\2\2\u01ab\u01a9\3\2\2\2\u01ab\u01ac"+
+		"\3\2\2\2\u01ac\u01ae\3\2\2\2\u01ad\u01ab\3\2\2\2\u01ae\u01af\7\n\2\2\u01af"+
+		"\u01b0\5\34\17\2\u01b0\u01b1\b\25\1\2\u01b1)\3\2\2\2\u01b2\u01b3\5,\27"+
+		"\2\u01b3\u01b4\b\26\1\2\u01b4\u01b9\3\2\2\2\u01b5\u01b6\5.\30\2\u01b6"+
+		"\u01b7\b\26\1\2\u01b7\u01b9\3\2\2\2\u01b8\u01b2\3\2\2\2\u01b8\u01b5\3"+
+		"\2\2\2\u01b9+\3\2\2\2\u01ba\u01bb\b\27\1\2\u01bb\u01bc\7!\2\2\u01bc\u01bd"+
+		"\5\66\34\2\u01bd\u01be\b\27\1\2\u01be\u01bf\5\34\17\2\u01bf\u01c0\b\27"+
+		"\1\2\u01c0-\3\2\2\2\u01c1\u01c2\b\30\1\2\u01c2\u01c3\7\"\2\2\u01c3\u01c4"+
+		"\5\32\16\2\u01c4\u01c8\b\30\1\2\u01c5\u01c7\7,\2\2\u01c6\u01c5\3\2\2\2"+
+		"\u01c7\u01ca\3\2\2\2\u01c8\u01c6\3\2\2\2\u01c8\u01c9\3\2\2\2\u01c9\u01cb"+
+		"\3\2\2\2\u01ca\u01c8\3\2\2\2\u01cb\u01cc\7!\2\2\u01cc\u01cd\5\66\34\2"+
+		"\u01cd\u01ce\b\30\1\2\u01ce/\3\2\2\2\u01cf\u01d0\7\7\2\2\u01d0\u01d1\7"+
+		"%\2\2\u01d1\u01d2\5\66\34\2\u01d2\u01d3\b\31\1\2\u01d3\u01d4\7&\2\2\u01d4"+
+		"\61\3\2\2\2\u01d5\u01d6\58\35\2\u01d6\u01d7\7#\2\2\u01d7\u01d8\5\66\34"+
+		"\2\u01d8\u01d9\b\32\1\2\u01d9\63\3\2\2\2\u01da\u01db\5&\24\2\u01db\u01dc"+
+		"\b\33\1\2\u01dc\u01f6\3\2\2\2\u01dd\u01de\5\60\31\2\u01de\u01df\b\33\1"+
+		"\2\u01df\u01f6\3\2\2\2\u01e0\u01e1\5\"\22\2\u01e1\u01e2\b\33\1\2\u01e2"+
+		"\u01f6\3\2\2\2\u01e3\u01e4\5$\23\2\u01e4\u01e5\b\33\1\2\u01e5\u01f6\3"+
+		"\2\2\2\u01e6\u01e7\5\62\32\2\u01e7\u01e8\b\33\1\2\u01e8\u01f6\3\2\2\2"+
+		"\u01e9\u01ea\5 \21\2\u01ea\u01eb\b\33\1\2\u01eb\u01f6\3\2\2\2\u01ec\u01ed"+
+		"\5*\26\2\u01ed\u01ee\b\33\1\2\u01ee\u01f6\3\2\2\2\u01ef\u01f0\5L\'\2\u01f0"+
+		"\u01f1\b\33\1\2\u01f1\u01f6\3\2\2\2\u01f2\u01f3\5J&\2\u01f3\u01f4\b\33"+
+		"\1\2\u01f4\u01f6\3\2\2\2\u01f5\u01da\3\2\2\2\u01f5\u01dd\3\2\2\2\u01f5"+
+		"\u01e0\3\2\2\2\u01f5\u01e3\3\2\2\2\u01f5\u01e6\3\2\2\2\u01f5\u01e9\3\2"+
+		"\2\2\u01f5\u01ec\3\2\2\2\u01f5\u01ef\3\2\2\2\u01f5\u01f2\3\2\2\2\u01f6"+
+		"\65\3\2\2\2\u01f7\u01f8\58\35\2\u01f8\u01fd\b\34\1\2\u01f9\u01fa\7#\2"+
+		"\2\u01fa\u01fb\5\66\34\2\u01fb\u01fc\b\34\1\2\u01fc\u01fe\3\2\2\2\u01fd"+
+		"\u01f9\3\2\2\2\u01fd\u01fe\3\2\2\2\u01fe\67\3\2\2\2\u01ff\u0200\5:\36"+
+		"\2\u0200\u0207\b\35\1\2\u0201\u0202\7\24\2\2\u0202\u0203\5:\36\2\u0203"+
+		"\u0204\b\35\1\2\u0204\u0206\3\2\2\2\u0205\u0201\3\2\2\2\u0206\u0209\3"+
+		"\2\2\2\u0207\u0205\3\2\2\2\u0207\u0208\3\2\2\2\u02089\3\2\2\2\u0209\u0207"+
+		"\3\2\2\2\u020a\u020b\5<\37\2\u020b\u0212\b\36\1\2\u020c\u020d\7\23\2\2"+
+		"\u020d\u020e\5<\37\2\u020e\u020f\b\36\1\2\u020f\u0211\3\2\2\2\u0210\u020c"+
+		"\3\2\2\2\u0211\u0214\3\2\2\2\u0212\u0210\3\2\2\2\u0212\u0213\3\2\2\2\u0213"+
+		";\3\2\2\2\u0214\u0212\3\2\2\2\u0215\u0216\5> \2\u0216\u021d\b\37\1\2\u0217"+
+		"\u0218\7\17\2\2\u0218\u0219\5> \2\u0219\u021a\b\37\1\2\u021a\u021c\3\2"+
+		"\2\2\u021b\u0217\3\2\2\2\u021c\u021f\3\2\2\2\u021d\u021b\3\2\2\2\u021d"+
+		"\u021e\3\2\2\2\u021e=\3\2\2\2\u021f\u021d\3\2\2\2\u0220\u0221\5@!\2\u0221"+
+		"\u022d\b \1\2\u0222\u0223\7\21\2\2\u0223\u0227\b \1\2\u0224\u0225\7\22"+
+		"\2\2\u0225\u0227\b \1\2\u0226\u0222\3\2\2\2\u0226\u0224\3\2\2\2\u0227"+
+		"\u0228\3\2\2\2\u0228\u0229\5@!\2\u0229\u022a\b \1\2\u022a\u022c\3\2\2"+
+		"\2\u022b\u0226\3\2\2\2\u022c\u022f\3\2\2\2\u022d\u022b\3\2\2\2\u022d\u022e"+
+		"\3\2\2\2\u022e?\3\2\2\2\u022f\u022d\3\2\2\2\u0230\u0231\5B\"\2\u0231\u023d"+
+		"\b!\1\2\u0232\u0233\7\13\2\2\u0233\u0237\b!\1\2\u0234\u0235\7\f\2\2\u0235"+
+		"\u0237\b!\1\2\u0236\u0232\3\2\2\2\u0236\u0234\3\2\2\2\u0237\u0238\3\2"+
+		"\2\2\u0238\u0239\5B\"\2\u0239\u023a\b!\1\2\u023a\u023c\3\2\2\2\u023b\u0236"+
+		"\3\2\2\2\u023c\u023f\3\2\2\2\u023d\u023b\3\2\2\2\u023d\u023e\3\2\2\2\u023e"+
+		"A\3\2\2\2\u023f\u023d\3\2\2\2\u0240\u0241\5D#\2\u0241\u024d\b\"\1\2\u0242"+
+		"\u0243\7\r\2\2\u0243\u0247\b\"\1\2\u0244\u0245\7\16\2\2\u0245\u0247\b"+
+		"\"\1\2\u0246\u0242\3\2\2\2\u0246\u0244\3\2\2\2\u0247\u0248\3\2\2\2\u0248"+
+		"\u0249\5D#\2\u0249\u024a\b\"\1\2\u024a\u024c\3\2\2\2\u024b\u0246\3\2\2"+
+		"\2\u024c\u024f\3\2\2\2\u024d\u024b\3\2\2\2\u024d\u024e\3\2\2\2\u024eC"+
+		"\3\2\2\2\u024f\u024d\3\2\2\2\u0250\u0251\7\25\2\2\u0251\u0255\b#\1\2\u0252"+
+		"\u0253\7\f\2\2\u0253\u0255\b#\1\2\u0254\u0250\3\2\2\2\u0254\u0252\3\2"+
+		"\2\2\u0255\u0256\3\2\2\2\u0256\u0257\5D#\2\u0257\u0258\b#\1\2\u0258\u025d"+
+		"\3\2\2\2\u0259\u025a\5F$\2\u025a\u025b\b#\1\2\u025b\u025d\3\2\2\2\u025c"+
+		"\u0254\3\2\2\2\u025c\u0259\3\2\2\2\u025dE\3\2\2\2\u025e\u025f\5H%\2\u025f"+
+		"\u026b\b$\1\2\u0260\u0261\7%\2\2\u0261\u0262\5\30\r\2\u0262\u0263\b$\1"+
+		"\2\u0263\u0264\7&\2\2\u0264\u026a\3\2\2\2\u0265\u0266\7*\2\2\u0266\u0267"+
+		"\5R*\2\u0267\u0268\b$\1\2\u0268\u026a\3\2\2\2\u0269\u0260\3\2\2\2\u0269"+
+		"\u0265\3\2\2\2\u026a\u026d\3\2\2\2\u026b\u0269\3\2\2\2\u026b\u026c\3\2"+
+		"\2\2\u026c\u0279\3\2\2\2\u026d\u026b\3\2\2\2\u026e\u026f\7\'\2\2\u026f"+
+		"\u0270\5\66\34\2\u0270\u0271\b$\1\2\u0271\u0272\7(\2\2\u0272\u0278\3\2"+
+		"\2\2\u0273\u0274\7*\2\2\u0274\u0275\5R*\2\u0275\u0276\b$\1\2\u0276\u0278"+
+		"\3\2\2\2\u0277\u026e\3\2\2\2\u0277\u0273\3\2\2\2\u0278\u027b\3\2\2\2\u0279"+
+		"\u0277\3\2\2\2\u0279\u027a\3\2\2\2\u027aG\3\2\2\2\u027b\u0279\3\2\2\2"+
+		"\u027c\u027d\5N(\2\u027d\u027e\b%\1\2\u027e\u028e\3\2\2\2\u027f\u0280"+
+		"\5R*\2\u0280\u0281\b%\1\2\u0281\u028e\3\2\2\2\u0282\u0283\7%\2\2\u0283"+
+		"\u0284\5\30\r\2\u0284\u0285\7&\2\2\u0285\u0286\b%\1\2\u0286\u028e\3\2"+
+		"\2\2\u0287\u0288\5J&\2\u0288\u0289\b%\1\2\u0289\u028e\3\2\2\2\u028a\u028b"+
+		"\5L\'\2\u028b\u028c\b%\1\2\u028c\u028e\3\2\2\2\u028d\u027c\3\2\2\2\u028d"+
+		"\u027f\3\2\2\2\u028d\u0282\3\2\2\2\u028d\u0287\3\2\2\2\u028d\u028a\3\2"+
+		"\2\2\u028eI\3\2\2\2\u028f\u0290\7\6\2\2\u0290\u0291\7%\2\2\u0291\u0292"+
+		"\5\66\34\2\u0292\u0293\b&\1\2\u0293\u0294\7&\2\2\u0294K\3\2\2\2\u0295"+
+		"\u0296\7\b\2\2\u0296\u0297\7%\2\2\u0297\u0298\5\66\34\2\u0298\u0299\7"+
+		")\2\2\u0299\u029a\5\66\34\2\u029a\u029b\7&\2\2\u029b\u029c\b\'\1\2\u029c"+
+		"M\3\2\2\2\u029d\u029e\5P)\2\u029e\u029f\b(\1\2\u029f\u02a3\3\2\2\2\u02a0"+
+		"\u02a1\7-\2\2\u02a1\u02a3\b(\1\2\u02a2\u029d\3\2\2\2\u02a2\u02a0\3\2\2"+
+		"\2\u02a3O\3\2\2\2\u02a4\u02a5\7\26\2\2\u02a5\u02a9\b)\1\2\u02a6\u02a7"+
+		"\7\27\2\2\u02a7\u02a9\b)\1\2\u02a8\u02a4\3\2\2\2\u02a8\u02a6\3\2\2\2\u02a9"+
+		"Q\3\2\2\2\u02aa\u02ab\7.\2\2\u02ab\u02ac\b*\1\2\u02acS\3\2\2\2\u02ad\u02ae"+
+		"\7\32\2\2\u02ae\u02be\b+\1\2\u02af\u02b0\7\33\2\2\u02b0\u02be\b+\1\2\u02b1"+
+		"\u02b2\7\34\2\2\u02b2\u02b3\7$\2\2\u02b3\u02b4\5T+\2\u02b4\u02b5\b+\1"+
+		"\2\u02b5\u02be\3\2\2\2\u02b6\u02b7\7\35\2\2\u02b7\u02b8\5R*\2\u02b8\u02b9"+
+		"\b+\1\2\u02b9\u02be\3\2\2\2\u02ba\u02bb\5V,\2\u02bb\u02bc\b+\1\2\u02bc"+
+		"\u02be\3\2\2\2\u02bd\u02ad\3\2\2\2\u02bd\u02af\3\2\2\2\u02bd\u02b1\3\2"+
+		"\2\2\u02bd\u02b6\3\2\2\2\u02bd\u02ba\3\2\2\2\u02beU\3\2\2\2\u02bf\u02c0"+
+		"\b,\1\2\u02c0\u02c1\7\36\2\2\u02c1\u02cf\7\22\2\2\u02c2\u02c3\7\5\2\2"+
+		"\u02c3\u02d0\b,\1\2\u02c4\u02c5\5T+\2\u02c5\u02cc\b,\1\2\u02c6\u02c7\7"+
+		")\2\2\u02c7\u02c8\5T+\2\u02c8\u02c9\b,\1\2\u02c9\u02cb\3\2\2\2\u02ca\u02c6"+
+		"\3\2\2\2\u02cb\u02ce\3\2\2\2\u02cc\u02ca\3\2\2\2\u02cc\u02cd\3\2\2\2\u02cd"+
+		"\u02d0\3\2\2\2\u02ce\u02cc\3\2\2\2\u02cf\u02c2\3\2\2\2\u02cf\u02c4\3\2"+
+		"\2\2\u02d0\u02d1\3\2\2\2\u02d1\u02d7\7\20\2\2\u02d2\u02d3\5T+\2\u02d3"+
+		"\u02d4\b,\1\2\u02d4\u02d8\3\2\2\2\u02d5\u02d6\7\5\2\2\u02d6\u02d8\b,\1"+
+		"\2\u02d7\u02d2\3\2\2\2\u02d7\u02d5\3\2\2\2\u02d8\u02d9\3\2\2\2\u02d9\u02da"+
+		"\7\21\2\2\u02daW\3\2\2\2I[cnv\u008d\u0094\u0099\u009b\u00a0\u00ac\u00ba"+
 		"\u00c0\u00c8\u00ce\u00d2\u00da\u00e2\u00ea\u00f3\u0101\u0104\u0111\u0114"+
 		"\u011c\u0121\u0123\u012b\u0130\u0138\u0140\u0146\u014a\u014f\u015b\u0165"+
-		"\u016b\u0179\u017b\u018b\u0198\u019d\u01aa\u01ba\u01e7\u01ef\u01f9\u0204"+
-		"\u020f\u0218\u021f\u0228\u022f\u0238\u023f\u0246\u024e\u025b\u025d\u0269"+
-		"\u026b\u027f\u0294\u029a\u02af\u02be\u02c1\u02c9";
+		"\u016b\u0179\u017b\u018b\u0195\u019a\u019f\u01a4\u01a6\u01ab\u01b8\u01c8"+
+		"\u01f5\u01fd\u0207\u0212\u021d\u0226\u022d\u0236\u023d\u0246\u024d\u0254"+
+		"\u025c\u0269\u026b\u0277\u0279\u028d\u02a2\u02a8\u02bd\u02cc\u02cf\u02d7";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {